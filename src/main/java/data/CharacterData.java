@@ -5,6 +5,8 @@ import entities.characters.Character;
 import entities.equipment.*;
 import entities.items.*;
 import systems.inventory.*;
+import util.Algorithms.NameTrie;
+import util.Algorithms.SortEngine;
 import java.io.*;
 import java.util.*;
 
@@ -699,6 +701,55 @@ public class CharacterData implements Serializable {
         System.out.println("Energy: " + energy);
     }
 
+    /**
+     * Gets the ids of the owned characters in a listing order
+     *
+     * @param order LEVEL (highest first, counting sort on the level), FRIENDSHIP (highest first) or NAME
+     * @return the character ids in order
+     */
+    public List<String> getCharacterIds(String order) {
+        List<String> ids = new ArrayList<>(ownedCharacters.keySet());
+        // hash map order first, then a stable sort by id so equal keys are always listed the same way
+        SortEngine.sort(ids, Comparator.naturalOrder());
+        if ("LEVEL".equalsIgnoreCase(order)) {
+            SortEngine.sortByKey(ids, id -> -characterLevels.getOrDefault(id, 1));
+        } else if ("FRIENDSHIP".equalsIgnoreCase(order)) {
+            SortEngine.sortByKey(ids, id -> -friendshipLevels.getOrDefault(id, 1));
+        } else if ("NAME".equalsIgnoreCase(order)) {
+            SortEngine.sort(ids, Comparator.comparing(id -> ownedCharacters.get(id).getName()));
+        }
+        return ids;
+    }
+
+    /**
+     * Find owned characters by a name typed with typos (case insensitive), the roster is small so the
+     * name trie is built on every call
+     *
+     * @param name        the typed name
+     * @param maxDistance the most wrong letters (inserted, missing or replaced), up to NameTrie.MAX_DISTANCE
+     * @return the character ids, closest name first
+     */
+    public List<String> findCharacterIds(String name, int maxDistance) {
+        NameTrie<String> trie = new NameTrie<>(ownedCharacters.keySet(), id -> ownedCharacters.get(id).getName());
+        return trie.fuzzy(name, maxDistance);
+    }
+
+    /**
+     * Print the owned characters with their level and friendship
+     *
+     * @param order LEVEL, FRIENDSHIP or NAME, see {@link #getCharacterIds(String)}
+     */
+    public void printCharacterList(String order) {
+        System.out.println("=== Owned Characters (" + order + ") ===");
+        List<String> ids = getCharacterIds(order);
+        for (int i = 0; i < ids.size(); i++) {
+            String id = ids.get(i);
+            System.out.println("  " + (i + 1) + ". " + ownedCharacters.get(id).getName()
+                    + " Lv." + characterLevels.getOrDefault(id, 1)
+                    + " Friendship: " + friendshipLevels.getOrDefault(id, 1));
+        }
+    }
+
     /**
      * Print character details with provided character name
      *
@@ -33,6 +33,10 @@ public class Character extends BattleUnit implements Serializable {
      * The Skill tree of character
      */
     protected SkillTree skillTree;
+    /**
+     * Counts equipment changes, so cached battle stats know when to be rebuilt
+     */
+    private transient int equipmentRevision;
 
     /**
      * Constructs a character with default values.
@@ -148,6 +152,7 @@ public class Character extends BattleUnit implements Serializable {
                 System.out.println(name + " equipped " + item.getName() + " on slot " + i);
                 // apply equipment attributes
                 applyEquipmentStats(item);
+                equipmentRevision++;
                 return;
             }
         }
@@ -171,11 +176,19 @@ public class Character extends BattleUnit implements Serializable {
             // remove equipment attributes
             removeEquipmentStats(equippedItems[slot]);
             equippedItems[slot] = null;
+            equipmentRevision++;
         } else {
             System.out.println("This slot does not exist!");
         }
     }
 
+    /**
+     * Gets the equipment revision, it changes every time an item is equipped or unequipped.
+     *
+     * @return the equipment revision
+     */
+    public int getEquipmentRevision() { return equipmentRevision; }
+
     /**
      * Applies an equipment's bonuses to this character's attributes.
      * Increases attack, defense, max HP, speed, and adjusts current HP.
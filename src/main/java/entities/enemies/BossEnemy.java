@@ -13,6 +13,14 @@ import java.io.Serializable;
 public class BossEnemy extends Enemy implements Serializable {
     //added serializable, so now people can save characters to a file (updated on 2026/1/13 emergency update)
     private static final long serialVersionUID = 1L;
+    /**
+     * Attack gained when entering a new phase
+     */
+    public static final int PHASE_ATTACK_BONUS = 10;
+    /**
+     * Defense gained when entering a new phase
+     */
+    public static final int PHASE_DEFENSE_BONUS = 5;
     private boolean hasPhases;
     private int currentPhase;
     private String[] phaseMessages;
@@ -111,16 +119,30 @@ public class BossEnemy extends Enemy implements Serializable {
             System.out.println(name + " is on final phase.");
             return;
         }
-        currentPhase++;
+        advancePhase();
         System.out.println(phaseMessages[currentPhase - 1]);
-        // When enter new phase, heal characters attributes
-        currentHP = Math.min(currentHP + maxHP / 2, maxHP);
-        attack += 10;
-        defense += 5;
         System.out.println(name + " entering Phase " + currentPhase + "!");
         System.out.println("Heal HP and added attack and defense");
     }
 
+    /**
+     * Enters the next phase without printing, used by battle simulations.
+     * The boss heals half of its max HP and gains attack and defense.
+     *
+     * @return true if the boss entered a new phase, false if it is on the final phase
+     */
+    public boolean advancePhase() {
+        if (!hasPhases || currentPhase >= phaseMessages.length) {
+            return false;
+        }
+        currentPhase++;
+        // When enter new phase, heal characters attributes
+        currentHP = Math.min(currentHP + maxHP / 2, maxHP);
+        attack += PHASE_ATTACK_BONUS;
+        defense += PHASE_DEFENSE_BONUS;
+        return true;
+    }
+
     /**
      * Use special attack (boss enemy) in default the boss have 30% chance of using this attack.
      */
@@ -150,12 +172,22 @@ public class BossEnemy extends Enemy implements Serializable {
     public void takeDamage(int damage) {
         super.takeDamage(damage);
         // check if entering new phase
+        if (shouldTransitionPhase()) {
+            transitionPhase();
+        }
+    }
+
+    /**
+     * Checks if the boss lost enough HP to enter the next phase, prints nothing
+     *
+     * @return true if the boss should transition phase
+     */
+    public boolean shouldTransitionPhase() {
         if (hasPhases && currentPhase < phaseMessages.length) {
             int phaseThreshold = maxHP / phaseMessages.length;
-            if (currentHP < maxHP - (currentPhase * phaseThreshold)) {
-                transitionPhase();
-            }
+            return currentHP < maxHP - (currentPhase * phaseThreshold);
         }
+        return false;
     }
 
     /**
@@ -164,7 +196,7 @@ public class BossEnemy extends Enemy implements Serializable {
      */
     @Override
     public void useSkill() {
-        if (random.nextDouble() < 0.3) { // boss 30% chance cause special attack
+        if (getRandomSource().nextDouble() < 0.3) { // boss 30% chance cause special attack
             useSpecialAttack();
         } else {
             super.useSkill();
@@ -1,9 +1,9 @@
 package entities.enemies;
 import entities.abs.BattleUnit;
 import entities.items.Item;
+import util.random.RandomSource;
 
 import java.io.Serializable;
-import java.util.Random;
 
 /**
  * Represents everything that is an enemy, includes BossEnemy and RegularEnemy
@@ -32,9 +32,9 @@ public class Enemy extends BattleUnit implements Serializable {
      */
     protected Item[] possibleDrops;
     /**
-     * The constant random will be used multiple times in this class
+     * The random source used for drops and skills, not saved with the enemy
      */
-    protected static final Random random = new Random();
+    private transient RandomSource random;
 
     /**
      * Instantiates a new Enemy with no parameters, with default values
@@ -101,12 +101,29 @@ public class Enemy extends BattleUnit implements Serializable {
      */
     public Item[] getPossibleDrops() { return possibleDrops; }
 
+    /**
+     * Gets the random source of the enemy, the thread local source if none was set
+     *
+     * @return the random source
+     */
+    public RandomSource getRandomSource() {
+        return random == null ? RandomSource.threadLocal() : random;
+    }
+
+    /**
+     * Sets the random source used for drops and skills, a seeded source makes them reproducible
+     *
+     * @param random the random source, null for the thread local source
+     */
+    public void setRandomSource(RandomSource random) { this.random = random; }
+
     /**
      * Calculate which item is dropped by the enemy, calculation uses drop rate and array of possible drop item
      *
      * @return the item dropped by the enemy
      */
     public Item calculateDrop() {
+        RandomSource random = getRandomSource();
         if (random.nextDouble() < dropRate) {
             if (possibleDrops.length > 0) {
                 // Choose drops randomly
@@ -129,7 +146,7 @@ public class Enemy extends BattleUnit implements Serializable {
     public void useSkill() {
         System.out.println(name + " used enemy skill");
         // Randomly choose skill
-        int skillType = random.nextInt(3);
+        int skillType = getRandomSource().nextInt(3);
         switch (skillType) {
             case 0:
                 System.out.println("Use standard skill");
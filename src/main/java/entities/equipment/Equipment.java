@@ -32,6 +32,8 @@ public abstract class Equipment extends Item implements Serializable {
      * The Stats of the equipment
      */
     protected Map<String, Integer> stats;
+    // bumped by every stat change, combat stats built from the equipment compare it to go stale
+    private transient int revision;
 
     /**
      * Instantiates a new equipment with default attributes and names
@@ -112,7 +114,18 @@ public abstract class Equipment extends Item implements Serializable {
      *
      * @param stats the stats of the equipment
      */
-    public void setStats(Map<String, Integer> stats) { this.stats = stats; }
+    public void setStats(Map<String, Integer> stats) {
+        this.stats = stats;
+        revision++;
+    }
+
+    /**
+     * Gets the stats revision, it changes every time the stats are enhanced or set.
+     * Changes made directly to the map of {@link #getStats()} are not counted
+     *
+     * @return the stats revision
+     */
+    public int getRevision() { return revision; }
 
     /**
      * Initialize the stats of the equipment with default values.
@@ -166,6 +179,7 @@ public abstract class Equipment extends Item implements Serializable {
         System.out.println("Enhanced " + name);
         // Base enhance, multiply all attributes by 1.1
         stats.replaceAll((key, value) -> (int)(value * 1.1));
+        revision++;
     }
 
 
@@ -179,6 +193,7 @@ public abstract class Equipment extends Item implements Serializable {
         // enhance using lvls
         double multiplier = 1.0 + (level * 0.05);
         stats.replaceAll((k, v) -> (int) (v * multiplier));
+        revision++;
     }
 
     /**
@@ -192,6 +207,7 @@ public abstract class Equipment extends Item implements Serializable {
     public void enhance(String stat, int amount) {
         if (stats.containsKey(stat)) {
             stats.put(stat, stats.get(stat) + amount);
+            revision++;
             System.out.println(name + "'s " + stat + " increased by " + amount);
         }
     }
@@ -217,6 +233,7 @@ public abstract class Equipment extends Item implements Serializable {
     public void setStat(String statName, int value) {
         if (stats.containsKey(statName)) {
             stats.put(statName, value);
+            revision++;
             return;
         }
         System.out.println("Stat " + statName + " doesn't exist!");
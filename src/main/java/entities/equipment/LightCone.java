@@ -1,5 +1,7 @@
 package entities.equipment;
 
+import util.random.RandomSource;
+
 import java.io.Serializable;
 
 /**
@@ -10,6 +12,7 @@ public class LightCone extends Equipment implements Serializable {
     private static final long serialVersionUID = 1L;
     private String pathAlignment; // paths
     private String[] abilities;
+    private transient RandomSource random; // not saved with the light cone
 
     /**
      * Instantiates a new Light cone.
@@ -125,6 +128,22 @@ public class LightCone extends Equipment implements Serializable {
         }
     }
 
+    /**
+     * Gets the random source of the light cone, the thread local source if none was set
+     *
+     * @return the random source
+     */
+    public RandomSource getRandomSource() {
+        return random == null ? RandomSource.threadLocal() : random;
+    }
+
+    /**
+     * Sets the random source used for ability triggers, a seeded source makes them reproducible
+     *
+     * @param random the random source, null for the thread local source
+     */
+    public void setRandomSource(RandomSource random) { this.random = random; }
+
     /**
      * Activate ability.
      */
@@ -139,7 +158,7 @@ public class LightCone extends Equipment implements Serializable {
             }
         }
         // The Hunt special skills
-        if (pathAlignment.equals("The Hunt") && Math.random() < 0.3) {
+        if (pathAlignment.equals("The Hunt") && getRandomSource().nextDouble() < 0.3) {
             System.out.println("Triggered The Hunt Instinct: Extra Move!");
         }
     }
@@ -1,6 +1,7 @@
 package entities.equipment;
 
 import entities.characters.Character;
+import util.random.RandomSource;
 
 import java.io.Serializable;
 
@@ -250,6 +251,15 @@ public class Relic extends Equipment implements Serializable {
      */
     @Override
     public void calculateStats() {
+        calculateStats(RandomSource.threadLocal());
+    }
+
+    /**
+     * Calculate Relic stats with a provided random source for the sub stat roll
+     *
+     * @param random the random source, a seeded source makes the sub stat reproducible
+     */
+    public void calculateStats(RandomSource random) {
         System.out.println("Calculating relic stats");
         // base attributes
         int mainStat = 0;
@@ -272,7 +282,7 @@ public class Relic extends Equipment implements Serializable {
                 break;
         }
         // random sub attributes (each relic hae main stats and sub stats)
-        if (Math.random() < 0.5) {
+        if (random.nextDouble() < 0.5) {
             int substatValue = requiredLevel * 2;
             setStat("critical_rate", getStat("critical_rate") + substatValue);
             System.out.println("Gain secondary attribute: Critical Hit Rate + " + substatValue);
@@ -1,5 +1,7 @@
 package entities.items;
 
+import util.random.RandomSource;
+
 import java.io.Serializable;
 
 /**
@@ -17,6 +19,7 @@ public class MaterialItem extends Item implements Serializable {
     private static final long serialVersionUID = 1L;
     private String materialType;
     private int rarity; // 1-5
+    private transient RandomSource random; // not saved with the item
 
     /**
      * Instantiates a new Material item with no provided args and all default values.
@@ -103,6 +106,22 @@ public class MaterialItem extends Item implements Serializable {
         }
     }
 
+    /**
+     * Gets the random source of the material, the thread local source if none was set
+     *
+     * @return the random source
+     */
+    public RandomSource getRandomSource() {
+        return random == null ? RandomSource.threadLocal() : random;
+    }
+
+    /**
+     * Sets the random source used for combine upgrades, a seeded source makes them reproducible
+     *
+     * @param random the random source, null for the thread local source
+     */
+    public void setRandomSource(RandomSource random) { this.random = random; }
+
     /**
      * Combine material item with another material item
      * only same type and rarity material items can be combined.
@@ -120,12 +139,13 @@ public class MaterialItem extends Item implements Serializable {
             int newRarity = this.rarity;
 
             // increase rarity
-            if (Math.random() < 0.1) { // 10% chance
+            if (getRandomSource().nextDouble() < 0.1) { // 10% chance
                 newRarity = Math.min(5, this.rarity + 1);
                 newName = "Upgraded" + newName;
             }
 
             MaterialItem combined = new MaterialItem(newName, this.materialType, newRarity, newValue);
+            combined.setRandomSource(random);
             System.out.println("Successfully combined to: " + combined.getName());
             System.out.println("Rarity " + combined.getRarityLevel());
 
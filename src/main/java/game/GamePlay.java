@@ -750,7 +750,13 @@ public class GamePlay {
         return false;
     }
 
-    private List<Enemy> createEnemies(int difficulty) {
+    /**
+     * Create the enemies of a difficulty, also used by battle sweeps
+     *
+     * @param difficulty the difficulty (1: easy, 2: normal, 3: hard)
+     * @return the enemies, empty for unknown difficulty
+     */
+    public static List<Enemy> createEnemies(int difficulty) {
         List<Enemy> enemies = new ArrayList<>();
 
         switch (difficulty) {
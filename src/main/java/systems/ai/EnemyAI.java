@@ -1,6 +1,9 @@
 package systems.ai;
 import entities.enemies.Enemy;
 import entities.abs.BattleUnit;
+import systems.battle.BattleSystem;
+import util.random.RandomSource;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -12,6 +15,12 @@ public class EnemyAI {
     private Enemy controlledEnemy;
     private int aggressionLevel;     //0: defensive, 1: balanced, 2: aggressive (set to 1 by default)
     private String[] behaviorPatterns;
+    private RandomSource random = RandomSource.threadLocal();
+    //MCTS behavior, the search keeps its tree between the turns of the enemy
+    private BattleSystem battle;
+    private MctsSearch search;
+    private BattleUnit plannedTarget;
+    private ThreatMatrix threatMatrix;   //shared by the enemies of a turn, null to score targets here
 
     /**
      * Instantiates a new Enemy ai
@@ -51,6 +60,72 @@ public class EnemyAI {
         return controlledEnemy;
     }
 
+    /**
+     * Sets the random source used by the RANDOM behavior
+     *
+     * @param random the random source, null for the thread local source
+     */
+    public void setRandomSource(RandomSource random) {
+        this.random = random == null ? RandomSource.threadLocal() : random;
+        if (search != null) {
+            search.setRandomSource(random);
+        }
+    }
+
+    /**
+     * Sets the threat matrix shared by the enemies, used by HIGHEST_THREAT and LOWEST_HP when it was
+     * built from the same targets, the owner updates it once per turn and targets whose stats changed since are rescored
+     *
+     * @param matrix the threat matrix, null to score the targets on every call
+     */
+    public void setThreatMatrix(ThreatMatrix matrix) {
+        this.threatMatrix = matrix;
+    }
+
+    /**
+     * Gets the shared threat matrix
+     *
+     * @return the threat matrix, null if not shared
+     */
+    public ThreatMatrix getThreatMatrix() {
+        return threatMatrix;
+    }
+
+    /**
+     * Sets the battle the enemy is fighting in, needed by the MCTS behavior
+     *
+     * @param battle the battle
+     */
+    public void setBattle(BattleSystem battle) {
+        this.battle = battle;
+        this.plannedTarget = null;
+        if (search != null) {
+            search.forget();
+        }
+    }
+
+    /**
+     * Sets the time budget of one MCTS decision
+     *
+     * @param millis the budget in milliseconds
+     */
+    public void setTimeBudgetMillis(long millis) {
+        getSearch().setBudgetMillis(millis);
+    }
+
+    /**
+     * Gets the search used by the MCTS behavior
+     *
+     * @return the search
+     */
+    public MctsSearch getSearch() {
+        if (search == null) {
+            search = new MctsSearch();
+            search.setRandomSource(random);
+        }
+        return search;
+    }
+
     /**
      * Sets aggression level
      *0:defensive,1:balanced,2:aggressive
@@ -77,6 +152,8 @@ public class EnemyAI {
 
     /**
      * Sets behavior patterns for the AI decisions
+     * The first pattern picks the target: HIGHEST_THREAT, LOWEST_HP, RANDOM or MCTS (tree search over the battle
+     * set by {@link #setBattle(BattleSystem)}, which also picks the action)
      *
      * @param patterns the behaviour
      */
@@ -102,6 +179,15 @@ public class EnemyAI {
         if (controlledEnemy == null) {
             return "WAIT";
         }
+        if ("MCTS".equalsIgnoreCase(getStrategy()) && battle != null) {
+            int action = getSearch().search(battle, battle.getSlot(controlledEnemy));
+            if (action >= 0) {
+                int type = MctsSearch.actionType(action);
+                plannedTarget = type == MctsSearch.DEFEND ? null : battle.getUnit(MctsSearch.actionTarget(action));
+                return MctsSearch.typeName(type);
+            }
+            //not the enemy's turn, use the rules below
+        }
         int hp = controlledEnemy.getCurrentHP();
         int max = controlledEnemy.getMaxHP();
         int hpPct;  //hp percentage
@@ -123,8 +209,51 @@ public class EnemyAI {
         return "ATTACK";
     }
 
+    /**
+     * Play the turn of the controlled enemy in the battle set by {@link #setBattle(BattleSystem)},
+     * the enemy must have the next action on the timeline. The action of {@link #decideAction()} is played on the
+     * target of {@link #selectTarget(List)} with {@link BattleSystem#executeAction(int, int, int)}, so with the MCTS
+     * behavior the battle plays the action and target the search planned
+     *
+     * @return true if the enemy acted, false if it is not its turn or it has no target
+     */
+    public boolean playTurn() {
+        if (controlledEnemy == null || battle == null) {
+            return false;
+        }
+        int slot = battle.getSlot(controlledEnemy);
+        if (slot < 0) {
+            return false;
+        }
+        String decision = decideAction();
+        int type;
+        if ("SKILL1".equals(decision)) {
+            type = MctsSearch.SKILL1;
+        } else if ("DEFEND".equals(decision)) {
+            type = MctsSearch.DEFEND;
+        } else {
+            type = MctsSearch.ATTACK;
+        }
+        int targetSlot = slot;
+        if (type != MctsSearch.DEFEND) {
+            BattleUnit target = selectTarget(opponentsOf(slot));
+            if (target == null) {
+                return false;
+            }
+            targetSlot = battle.getSlot(target);
+        }
+        boolean played = battle.executeAction(slot, type, targetSlot);
+        if (search != null) {
+            //the kept tree only follows the battle if the planned action was played
+            search.played(played ? MctsSearch.action(type, targetSlot) : -1);
+        }
+        return played;
+    }
+
     /**
      * Select target battle unit.
+     * With the MCTS behavior the target planned by the last {@link #decideAction()} is used,
+     * if it is gone the HIGHEST_THREAT target is picked
      *
      * @param targets the targets
      * @return the battle unit
@@ -134,18 +263,27 @@ public class EnemyAI {
             return null;
         }
 
-        String strategy; 
-        if (behaviorPatterns != null && behaviorPatterns.length > 0) {
-            strategy = behaviorPatterns[0];
-        } else {
-            strategy = "HIGHEST_THREAT";
-        }
-        if ("LOWEST_HP".equalsIgnoreCase(strategy)) {
-            return pickLowestHp(targets);
+        String strategy = getStrategy();
+        if ("MCTS".equalsIgnoreCase(strategy) && plannedTarget != null) {
+            //target found by the last decideAction
+            BattleUnit planned = plannedTarget;
+            plannedTarget = null;
+            if (planned.isAlive() && targets.contains(planned)) {
+                return planned;
+            }
         }
         if ("RANDOM".equalsIgnoreCase(strategy)) {
             return pickRandomAlive(targets);
         }
+        boolean lowestHp = "LOWEST_HP".equalsIgnoreCase(strategy);
+        if (threatMatrix != null && threatMatrix.covers(targets)) {
+            //targets hit since the matrix was built (e.g. by another enemy this turn) are rescored first
+            threatMatrix.refresh();
+            return lowestHp ? threatMatrix.getLowestHp() : threatMatrix.getHighestThreat();
+        }
+        if (lowestHp) {
+            return pickLowestHp(targets);
+        }
 
         BattleUnit best = null;
         int bestScore = Integer.MIN_VALUE;
@@ -166,6 +304,13 @@ public class EnemyAI {
         }
         return best;
     }
+    //helper 0
+    private String getStrategy() {
+        if (behaviorPatterns != null && behaviorPatterns.length > 0) {
+            return behaviorPatterns[0];
+        }
+        return "HIGHEST_THREAT";
+    }
     //helper 1
     private BattleUnit pickLowestHp(java.util.List<BattleUnit> targets) {
         BattleUnit best = null;
@@ -198,9 +343,21 @@ public class EnemyAI {
         if (pool.isEmpty()) {
             return null;
         }
-        int idx = (int) (Math.random() *pool.size());
+        int idx = random.nextInt(pool.size());
         return pool.get(idx);
     }
+    //helper 3
+    private List<BattleUnit> opponentsOf(int slot) {
+        List<BattleUnit> opponents = new ArrayList<>(4);
+        int first = slot < 4 ? 4 : 0;
+        for (int i = first; i < first + 4; i++) {
+            BattleUnit u = battle.getUnit(i);
+            if (u != null) {
+                opponents.add(u);
+            }
+        }
+        return opponents;
+    }
 
     /**
      * Evaluate threat
@@ -0,0 +1,458 @@
+package systems.ai;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import systems.battle.BattleSystem;
+import systems.battle.CombatState;
+import util.random.RandomSource;
+
+/**
+ * Monte Carlo tree search for the action of one unit, used by the "MCTS" behavior of {@link EnemyAI}
+ * The tree only branches on the decisions of the searching unit: ATTACK, SKILL1 (x1.5 damage) on every alive
+ * opponent, or DEFEND (defense counts double until its next action), the actions of
+ * {@link BattleSystem#executeAction(int, int, int)} that plays the chosen action.
+ * Turns of the other units and every damage roll are played by the {@link CombatState} rules between decisions,
+ * so a node is a decision point reached through random outcomes (open loop) and every iteration plays the
+ * branch again from the captured battle with new rolls. Nodes are picked with UCB1, new nodes are scored
+ * by a rollout of normal turns up to a turn horizon.
+ * Every worker searches its own tree on its own captured state and random stream (root parallelization),
+ * the visits of the root actions are added up at the end, so workers share nothing while searching.
+ * The subtree of the chosen action is kept, the next search of the same unit in the same battle starts from it
+ * if the action was reported as played with {@link #played(int)}, otherwise the next search starts from nothing.
+ * Searching stops at the deadline of the time budget, the last iteration is never cut so a search can go
+ * over by the length of one rollout
+ * @author Kumail
+ * @version 1.0
+ */
+public class MctsSearch {
+    /**
+     * Action type, normal attack
+     */
+    public static final int ATTACK = BattleSystem.ACTION_ATTACK;
+    /**
+     * Action type, skill 1 attack
+     */
+    public static final int SKILL1 = BattleSystem.ACTION_SKILL1;
+    /**
+     * Action type, defend
+     */
+    public static final int DEFEND = BattleSystem.ACTION_DEFEND;
+
+    /**
+     * Default time budget of a decision
+     */
+    public static final long DEFAULT_BUDGET_MILLIS = 20;
+    /**
+     * Default number of turns played after the root before a branch is scored
+     */
+    public static final int DEFAULT_HORIZON = 40;
+
+    private static final int ACTIONS = 3 * CombatState.SLOTS;
+    private static final double SKILL1_MULTIPLIER = BattleSystem.SKILL1_MULTIPLIER;
+    private static final double EXPLORATION = 1.4;
+
+    private final int workers;
+    private final ForkJoinPool pool;
+    private RandomSource random;
+    private long budgetMillis = DEFAULT_BUDGET_MILLIS;
+    private int horizon = DEFAULT_HORIZON;
+
+    //trees of the workers kept for the next decision
+    private Node[] roots;
+    private BattleSystem lastBattle;
+    private int lastSlot = -1;
+    private int lastTurn = -1;
+    private int lastAction = -1;
+    private int playedAction = -1;      //action played after the last search, -1 if not reported
+    private long lastIterations;
+
+    /**
+     * Instantiates a new Mcts search with one worker per core on the common fork join pool
+     */
+    public MctsSearch() {
+        this(Runtime.getRuntime().availableProcessors(), RandomSource.threadLocal(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Instantiates a new Mcts search
+     *
+     * @param workers the number of trees searched in parallel
+     * @param random  the random source, every worker gets a split stream
+     * @param pool    the pool running the workers
+     */
+    public MctsSearch(int workers, RandomSource random, ForkJoinPool pool) {
+        this.workers = Math.max(1, workers);
+        this.random = random == null ? RandomSource.threadLocal() : random;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the time budget of a decision
+     *
+     * @param millis the budget in milliseconds
+     */
+    public void setBudgetMillis(long millis) {
+        this.budgetMillis = Math.max(0, millis);
+    }
+
+    /**
+     * Gets the time budget of a decision
+     *
+     * @return the budget in milliseconds
+     */
+    public long getBudgetMillis() { return budgetMillis; }
+
+    /**
+     * Sets the number of turns played after the root before a branch is scored
+     *
+     * @param turns the horizon in turns
+     */
+    public void setHorizon(int turns) {
+        this.horizon = Math.max(1, turns);
+    }
+
+    /**
+     * Sets the random source
+     *
+     * @param random the random source, null for the thread local source
+     */
+    public void setRandomSource(RandomSource random) {
+        this.random = random == null ? RandomSource.threadLocal() : random;
+    }
+
+    /**
+     * Gets the number of iterations (all workers) of the last search
+     *
+     * @return the iterations
+     */
+    public long getLastIterations() { return lastIterations; }
+
+    /**
+     * Search the best action of a unit whose turn is next on the battle timeline
+     *
+     * @param battle the battle in progress
+     * @param slot   the grid slot of the unit
+     * @return the action (see {@link #actionType(int)} and {@link #actionTarget(int)}),
+     * -1 if the battle is over or the next turn is not the unit's
+     */
+    public int search(BattleSystem battle, int slot) {
+        lastIterations = 0;
+        if (battle == null || slot < 0 || slot >= CombatState.SLOTS) {
+            return -1;
+        }
+        //captured on this thread, the workers never touch the battle
+        CombatState[] states = new CombatState[workers];
+        RandomSource[] streams = new RandomSource[workers];
+        for (int w = 0; w < workers; w++) {
+            states[w] = battle.captureState();
+            if (states[w].nextActor() != slot) {
+                forget();
+                return -1;
+            }
+            streams[w] = random.split();
+        }
+
+        //the kept subtree only follows the battle if the unit played the action the search chose
+        boolean reuse = battle == lastBattle && slot == lastSlot && battle.getTurnCount() > lastTurn
+                && playedAction >= 0 && playedAction == lastAction && roots != null && roots.length == workers;
+        Node[] start = new Node[workers];
+        for (int w = 0; w < workers; w++) {
+            Node kept = reuse ? roots[w].children[lastAction] : null;
+            if (kept != null) {
+                kept.parent = null;
+                start[w] = kept;
+            } else {
+                start[w] = new Node(null);
+            }
+        }
+
+        long deadline = System.nanoTime() + budgetMillis * 1000000L;
+        int turns = horizon;
+        List<Future<Long>> others = new ArrayList<>();
+        for (int w = 1; w < workers; w++) {
+            int worker = w;
+            others.add(pool.submit(() -> runWorker(start[worker], states[worker], slot, streams[worker],
+                    deadline, turns)));
+        }
+        //the calling thread searches too, workers that start after the deadline do nothing
+        lastIterations = runWorker(start[0], states[0], slot, streams[0], deadline, turns);
+        try {
+            for (Future<Long> other : others) {
+                lastIterations += other.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+
+        //most visited root action over all workers
+        CombatState root = battle.captureState();
+        int best = -1;
+        long bestVisits = -1;
+        double bestScore = 0;
+        for (int action = 0; action < ACTIONS; action++) {
+            if (!isLegal(root, slot, action)) {
+                continue;
+            }
+            long visits = 0;
+            double score = 0;
+            for (int w = 0; w < workers; w++) {
+                Node child = start[w].children[action];
+                if (child != null) {
+                    visits += child.visits;
+                    score += child.score;
+                }
+            }
+            //equal visits go to the better average
+            if (visits > bestVisits || (visits == bestVisits && score > bestScore)) {
+                bestVisits = visits;
+                bestScore = score;
+                best = action;
+            }
+        }
+        if (bestVisits == 0) {
+            //no time to search, attack like a normal turn
+            best = action(ATTACK, root.pickAliveOpponent(slot));
+        }
+
+        roots = start;
+        lastBattle = battle;
+        lastSlot = slot;
+        lastTurn = battle.getTurnCount();
+        lastAction = best;
+        playedAction = -1;
+        return best;
+    }
+
+    /**
+     * Report the action the unit played after the last search, the kept tree is dropped if it is not
+     * the action the search returned
+     *
+     * @param action the action played, -1 if the unit did something the search does not know
+     */
+    public void played(int action) {
+        if (action != lastAction) {
+            forget();
+        } else {
+            playedAction = action;
+        }
+    }
+
+    /**
+     * Drop the kept trees, the next search starts from nothing
+     */
+    public void forget() {
+        roots = null;
+        lastBattle = null;
+        lastSlot = -1;
+        lastTurn = -1;
+        lastAction = -1;
+        playedAction = -1;
+    }
+
+    /**
+     * Build an action
+     *
+     * @param type   ATTACK, SKILL1 or DEFEND
+     * @param target the slot of the target (the unit itself for DEFEND)
+     * @return the action
+     */
+    public static int action(int type, int target) {
+        return type * CombatState.SLOTS + target;
+    }
+
+    /**
+     * Gets the type of an action
+     *
+     * @param action the action
+     * @return ATTACK, SKILL1 or DEFEND
+     */
+    public static int actionType(int action) {
+        return action / CombatState.SLOTS;
+    }
+
+    /**
+     * Gets the target slot of an action
+     *
+     * @param action the action
+     * @return the slot of the target
+     */
+    public static int actionTarget(int action) {
+        return action % CombatState.SLOTS;
+    }
+
+    /**
+     * Gets the name of an action type as used by {@link EnemyAI#decideAction()}
+     *
+     * @param type the action type
+     * @return ATTACK, SKILL1 or DEFEND
+     */
+    public static String typeName(int type) {
+        switch (type) {
+            case SKILL1:
+                return "SKILL1";
+            case DEFEND:
+                return "DEFEND";
+            default:
+                return "ATTACK";
+        }
+    }
+
+    //helpers
+
+    private static long runWorker(Node root, CombatState s, int slot, RandomSource random, long deadline,
+                                  int horizon) {
+        CombatState.Snapshot start = s.snapshot();
+        long iterations = 0;
+        while (System.nanoTime() < deadline) {
+            s.restore(start);
+            iterate(root, s, slot, random, start.getTurnCount() + horizon);
+            iterations++;
+        }
+        return iterations;
+    }
+
+    /**
+     * One iteration: select down the tree, add one node, play a rollout and back up the score
+     */
+    private static void iterate(Node root, CombatState s, int slot, RandomSource random, int horizon) {
+        Node node = root;
+        while (true) {
+            int action = select(node, s, slot);
+            if (action < 0) {
+                break;
+            }
+            Node child = node.children[action];
+            boolean expanded = child == null;
+            if (expanded) {
+                child = new Node(node);
+                node.children[action] = child;
+            }
+            apply(s, slot, action, random);
+            node = child;
+            if (expanded || !advanceToDecision(s, slot, random, horizon)) {
+                break;
+            }
+        }
+        s.run(horizon, random);
+        double score = evaluate(s, slot);
+        for (Node n = node; n != null; n = n.parent) {
+            n.visits++;
+            n.score += score;
+        }
+    }
+
+    /**
+     * UCB1, actions never tried are picked first
+     * @return the action, -1 when the unit has nothing to do
+     */
+    private static int select(Node node, CombatState s, int slot) {
+        double logVisits = Math.log(Math.max(1, node.visits));
+        int best = -1;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int action = 0; action < ACTIONS; action++) {
+            if (!isLegal(s, slot, action)) {
+                continue;
+            }
+            Node child = node.children[action];
+            if (child == null) {
+                return action;
+            }
+            double value = child.score / child.visits + EXPLORATION * Math.sqrt(logVisits / child.visits);
+            if (value > bestValue) {
+                bestValue = value;
+                best = action;
+            }
+        }
+        return best;
+    }
+
+    private static boolean isLegal(CombatState s, int slot, int action) {
+        int type = actionType(action);
+        int target = actionTarget(action);
+        if (type == DEFEND) {
+            return target == slot;
+        }
+        boolean opponent = (slot < CombatState.ENEMY_ROW) != (target < CombatState.ENEMY_ROW);
+        return opponent && s.isAlive(target);
+    }
+
+    private static void apply(CombatState s, int slot, int action, RandomSource random) {
+        int type = actionType(action);
+        if (type == DEFEND) {
+            s.defend(slot);
+        } else {
+            s.attack(slot, actionTarget(action), type == SKILL1 ? SKILL1_MULTIPLIER : 1.0, random);
+        }
+    }
+
+    /**
+     * Play the turns of the other units until the unit acts again
+     * @return true when it is the unit's turn, false when the battle ended or hit the horizon
+     */
+    private static boolean advanceToDecision(CombatState s, int slot, RandomSource random, int horizon) {
+        while (s.getState() == CombatState.IN_PROGRESS && s.getTurnCount() < horizon) {
+            int acting = s.nextActor();
+            if (acting < 0) {
+                return false;
+            }
+            if (acting == slot) {
+                return true;
+            }
+            int target = s.pickAliveOpponent(acting);
+            if (target < 0) {
+                s.checkBattleEnd();
+                return false;
+            }
+            s.attack(acting, target, random);
+        }
+        return false;
+    }
+
+    /**
+     * Score of a branch for the side of the unit (0-1), wins score above 0.9 and losses below 0.1,
+     * hp left (fraction of max hp) breaks ties so a lost battle still prefers hurting the other side
+     */
+    private static double evaluate(CombatState s, int slot) {
+        int first = slot < CombatState.ENEMY_ROW ? 0 : CombatState.ENEMY_ROW;
+        double own = hpFraction(s, first);
+        double other = hpFraction(s, CombatState.ENEMY_ROW - first);
+        int state = s.getState();
+        if (state == CombatState.DRAW) {
+            return 0.5;
+        }
+        if (state != CombatState.IN_PROGRESS) {
+            boolean won = (state == CombatState.WON) == (first == 0);
+            return won ? 0.9 + 0.1 * own : 0.1 * (1.0 - other);
+        }
+        return 0.5 + 0.4 * (own - other);
+    }
+
+    private static double hpFraction(CombatState s, int firstSlot) {
+        long hp = 0;
+        long max = 0;
+        for (int slot = firstSlot; slot < firstSlot + 4; slot++) {
+            hp += s.getHP(slot);
+            max += s.getMaxHP(slot);
+        }
+        return max == 0 ? 0.0 : (double) hp / max;
+    }
+
+    /**
+     * Decision point of the searching unit, children are indexed by action
+     */
+    private static final class Node {
+        private Node parent;
+        private final Node[] children = new Node[ACTIONS];
+        private long visits;
+        private double score;
+
+        private Node(Node parent) {
+            this.parent = parent;
+        }
+    }
+}
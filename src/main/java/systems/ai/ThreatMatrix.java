@@ -0,0 +1,208 @@
+package systems.ai;
+import java.util.Arrays;
+import java.util.List;
+import entities.abs.BattleUnit;
+
+/**
+ * Threat scores of the player units for one turn, shared by every enemy deciding in that turn
+ * The stats of the targets are copied once into one primitive array per stat (rows are targets),
+ * then {@link #score} computes every threat in one loop with no calls and no object reads, which the JIT can unroll
+ * and vectorize. The threat formula is the same as {@link EnemyAI#evaluateThreat(BattleUnit)} and does not depend
+ * on the enemy, so every enemy reads the same row instead of scoring the targets again.
+ * Call {@link #update(List)} once per turn, the arrays are reused. Reads go through {@link #refresh()} which compares
+ * the cached stats with the units and rescores when any of them changed since (e.g. hit by another enemy this turn),
+ * so picks always follow the current hp
+ * @author Kumail
+ * @version 1.0
+ */
+public class ThreatMatrix {
+    private BattleUnit[] units = new BattleUnit[0];
+    private int[] atk = new int[0];
+    private int[] def = new int[0];
+    private int[] spd = new int[0];
+    private int[] hp = new int[0];
+    private int[] maxHp = new int[0];
+    private int[] threat = new int[0];
+    private int size;
+    private int highestThreat = -1;
+    private int lowestHp = -1;
+
+    /**
+     * Copy the stats of the targets and score them
+     *
+     * @param targets the player units, null and dead units are kept but never picked
+     */
+    public void update(List<? extends BattleUnit> targets) {
+        size = targets == null ? 0 : targets.size();
+        ensureCapacity(size);
+        for (int i = 0; i < size; i++) {
+            units[i] = targets.get(i);
+            load(i);
+        }
+        Arrays.fill(units, size, units.length, null);
+        rescore();
+    }
+
+    /**
+     * Compare the cached stats with the units and rescore if any of them changed since the last update
+     *
+     * @return true if the matrix was rescored
+     */
+    public boolean refresh() {
+        boolean changed = false;
+        for (int i = 0; i < size; i++) {
+            BattleUnit t = units[i];
+            if (t != null && (hp[i] != t.getCurrentHP() || atk[i] != t.getAttack() || def[i] != t.getDefense()
+                    || spd[i] != t.getSpeed() || maxHp[i] != t.getMaxHP())) {
+                load(i);
+                changed = true;
+            }
+        }
+        if (changed) {
+            rescore();
+        }
+        return changed;
+    }
+
+    /**
+     * Threat kernel, scores n targets from their stats, dead targets get Integer.MIN_VALUE
+     *
+     * @param atk   the attack of every target
+     * @param def   the defense of every target
+     * @param spd   the speed of every target
+     * @param hp    the current hp of every target
+     * @param maxHp the max hp of every target
+     * @param out   the threat of every target
+     * @param n     the number of targets
+     */
+    public static void score(int[] atk, int[] def, int[] spd, int[] hp, int[] maxHp, int[] out, int n) {
+        for (int i = 0; i < n; i++) {
+            int missing = maxHp[i] > 0 ? maxHp[i] - hp[i] : 0;
+            int s = (atk[i] * 2) + spd[i] + (missing / 4) - (def[i] / 3);
+            out[i] = hp[i] > 0 ? s : Integer.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Checks if the matrix was built from these targets (same units in the same order)
+     *
+     * @param targets the targets
+     * @return true if the rows match the targets
+     */
+    public boolean covers(List<? extends BattleUnit> targets) {
+        if (targets == null || targets.size() != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (targets.get(i) != units[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the alive target with the highest threat, the first one on ties
+     * The target was alive at the last {@link #update(List)} or {@link #refresh()}, it may have died since
+     *
+     * @return the target, null if every target is dead
+     */
+    public BattleUnit getHighestThreat() {
+        return highestThreat < 0 ? null : units[highestThreat];
+    }
+
+    /**
+     * Gets the alive target with the lowest hp, the first one on ties
+     * The target was alive at the last {@link #update(List)} or {@link #refresh()}, it may have died since
+     *
+     * @return the target, null if every target is dead
+     */
+    public BattleUnit getLowestHp() {
+        return lowestHp < 0 ? null : units[lowestHp];
+    }
+
+    /**
+     * Gets the number of targets
+     *
+     * @return the size
+     */
+    public int size() { return size; }
+
+    /**
+     * Gets the target of a row
+     *
+     * @param row the row
+     * @return the target
+     */
+    public BattleUnit getUnit(int row) {
+        checkRow(row);
+        return units[row];
+    }
+
+    /**
+     * Gets the threat of a row
+     *
+     * @param row the row
+     * @return the threat, Integer.MIN_VALUE for a dead target
+     */
+    public int getThreat(int row) {
+        checkRow(row);
+        return threat[row];
+    }
+
+    //helpers
+
+    private void load(int i) {
+        BattleUnit t = units[i];
+        if (t == null) {
+            atk[i] = 0;
+            def[i] = 0;
+            spd[i] = 0;
+            hp[i] = 0;
+            maxHp[i] = 0;
+        } else {
+            atk[i] = t.getAttack();
+            def[i] = t.getDefense();
+            spd[i] = t.getSpeed();
+            hp[i] = t.getCurrentHP();
+            maxHp[i] = t.getMaxHP();
+        }
+    }
+
+    private void rescore() {
+        score(atk, def, spd, hp, maxHp, threat, size);
+        //first best like EnemyAI.selectTarget
+        highestThreat = -1;
+        lowestHp = -1;
+        for (int i = 0; i < size; i++) {
+            if (hp[i] <= 0) {
+                continue;
+            }
+            if (highestThreat < 0 || threat[i] > threat[highestThreat]) {
+                highestThreat = i;
+            }
+            if (lowestHp < 0 || hp[i] < hp[lowestHp]) {
+                lowestHp = i;
+            }
+        }
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " out of " + size);
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= threat.length) {
+            return;
+        }
+        units = Arrays.copyOf(units, capacity);
+        atk = new int[capacity];
+        def = new int[capacity];
+        spd = new int[capacity];
+        hp = new int[capacity];
+        maxHp = new int[capacity];
+        threat = new int[capacity];
+    }
+}
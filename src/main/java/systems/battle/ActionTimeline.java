@@ -0,0 +1,281 @@
+package systems.battle;
+import java.util.Arrays;
+
+/**
+ * Speed based turn scheduler using action values
+ * Every unit needs BASE_ACTION_VALUE / speed time to get its next action, the unit with the lowest next action time
+ * acts first, so faster units act more often. Units are kept in a binary heap keyed by next action time,
+ * getting the next unit, changing speed, action advance/delay and adding or removing a unit are all O(log n)
+ * Units are identified by int ids (0 to capacity-1) given by the caller, ties go to the lower id
+ * @author Kumail
+ * @version 1.0
+ */
+public class ActionTimeline {
+    /**
+     * Distance of one action, a unit with 100 speed acts every 100 time
+     */
+    public static final double BASE_ACTION_VALUE = 10000.0;
+
+    private double now;
+    private double[] nextTime;
+    private int[] speed;
+    private int[] heapPos;   //-1 when the id is not on the timeline
+    private int[] heap;
+    private int size;
+
+    /**
+     * Instantiates a new Action timeline
+     *
+     * @param capacity the number of ids expected, grows when bigger ids are added
+     */
+    public ActionTimeline(int capacity) {
+        capacity = Math.max(1, capacity);
+        nextTime = new double[capacity];
+        speed = new int[capacity];
+        heapPos = new int[capacity];
+        heap = new int[capacity];
+        Arrays.fill(heapPos, -1);
+    }
+
+    /**
+     * Add a unit, it acts after one full action from now
+     *
+     * @param id    the id of the unit
+     * @param speed the speed of the unit
+     */
+    public void add(int id, int speed) {
+        if (id < 0) {
+            throw new IllegalArgumentException("Unit id cannot be negative: " + id);
+        }
+        ensureCapacity(id + 1);
+        if (heapPos[id] >= 0) {
+            throw new IllegalArgumentException("Unit " + id + " is already on the timeline");
+        }
+        this.speed[id] = Math.max(1, speed);
+        nextTime[id] = now + BASE_ACTION_VALUE / this.speed[id];
+        heap[size] = id;
+        heapPos[id] = size;
+        size++;
+        siftUp(heapPos[id]);
+    }
+
+    /**
+     * Remove a unit (e.g. when it dies)
+     *
+     * @param id the id of the unit
+     * @return true if the unit was on the timeline
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        int pos = heapPos[id];
+        size--;
+        heapPos[id] = -1;
+        if (pos != size) {
+            int last = heap[size];
+            heap[pos] = last;
+            heapPos[last] = pos;
+            siftDown(pos);
+            siftUp(heapPos[last]);
+        }
+        return true;
+    }
+
+    /**
+     * Get the unit with the next action, time moves to its action and its following action is scheduled
+     *
+     * @return the id of the unit, -1 if the timeline is empty
+     */
+    public int next() {
+        if (size == 0) {
+            return -1;
+        }
+        int id = heap[0];
+        now = nextTime[id];
+        nextTime[id] = now + BASE_ACTION_VALUE / speed[id];
+        siftDown(0);
+        return id;
+    }
+
+    /**
+     * Peek the unit with the next action without moving time
+     *
+     * @return the id of the unit, -1 if the timeline is empty
+     */
+    public int peek() {
+        return size == 0 ? -1 : heap[0];
+    }
+
+    /**
+     * Change the speed of a unit (speed buff or debuff), the rest of its current action is scaled to the new speed
+     *
+     * @param id       the id of the unit
+     * @param newSpeed the new speed
+     */
+    public void setSpeed(int id, int newSpeed) {
+        checkContains(id);
+        newSpeed = Math.max(1, newSpeed);
+        double distanceLeft = (nextTime[id] - now) * speed[id];
+        speed[id] = newSpeed;
+        update(id, now + distanceLeft / newSpeed);
+    }
+
+    /**
+     * Action advance, moves the next action of a unit forward by a part of a full action (never before now)
+     *
+     * @param id       the id of the unit
+     * @param fraction the part of a full action, e.g. 0.25 for 25%
+     */
+    public void advance(int id, double fraction) {
+        checkContains(id);
+        update(id, Math.max(now, nextTime[id] - fraction * BASE_ACTION_VALUE / speed[id]));
+    }
+
+    /**
+     * Action delay, moves the next action of a unit back by a part of a full action
+     *
+     * @param id       the id of the unit
+     * @param fraction the part of a full action, e.g. 0.25 for 25%
+     */
+    public void delay(int id, double fraction) {
+        checkContains(id);
+        update(id, nextTime[id] + fraction * BASE_ACTION_VALUE / speed[id]);
+    }
+
+    /**
+     * Gets the time left before the next action of a unit
+     *
+     * @param id the id of the unit
+     * @return the action value of the unit
+     */
+    public double getActionValue(int id) {
+        checkContains(id);
+        return nextTime[id] - now;
+    }
+
+    /**
+     * Gets the current time of the timeline
+     *
+     * @return the time of the last action
+     */
+    public double getTime() { return now; }
+
+    /**
+     * Checks if a unit is on the timeline
+     *
+     * @param id the id of the unit
+     * @return true if the unit is on the timeline
+     */
+    public boolean contains(int id) {
+        return id >= 0 && id < heapPos.length && heapPos[id] >= 0;
+    }
+
+    /**
+     * Gets the number of units on the timeline
+     *
+     * @return the size
+     */
+    public int size() { return size; }
+
+    /**
+     * Copy another timeline into this one (time, speeds and next actions), used to restore snapshots
+     *
+     * @param other the timeline to copy
+     */
+    public void copyFrom(ActionTimeline other) {
+        ensureCapacity(other.heapPos.length);
+        clear();
+        System.arraycopy(other.nextTime, 0, nextTime, 0, other.nextTime.length);
+        System.arraycopy(other.speed, 0, speed, 0, other.speed.length);
+        System.arraycopy(other.heapPos, 0, heapPos, 0, other.heapPos.length);
+        System.arraycopy(other.heap, 0, heap, 0, other.size);
+        size = other.size;
+        now = other.now;
+    }
+
+    /**
+     * Remove every unit and move time back to 0
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            heapPos[heap[i]] = -1;
+        }
+        size = 0;
+        now = 0;
+    }
+
+    //helpers
+
+    private void checkContains(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("Unit " + id + " is not on the timeline");
+        }
+    }
+
+    private void update(int id, double time) {
+        double old = nextTime[id];
+        nextTime[id] = time;
+        if (time < old) {
+            siftUp(heapPos[id]);
+        } else {
+            siftDown(heapPos[id]);
+        }
+    }
+
+    private boolean before(int a, int b) {
+        if (nextTime[a] != nextTime[b]) {
+            return nextTime[a] < nextTime[b];
+        }
+        return a < b;
+    }
+
+    private void siftUp(int pos) {
+        int id = heap[pos];
+        while (pos > 0) {
+            int parent = (pos - 1) >>> 1;
+            if (!before(id, heap[parent])) {
+                break;
+            }
+            heap[pos] = heap[parent];
+            heapPos[heap[pos]] = pos;
+            pos = parent;
+        }
+        heap[pos] = id;
+        heapPos[id] = pos;
+    }
+
+    private void siftDown(int pos) {
+        int id = heap[pos];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && before(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!before(heap[child], id)) {
+                break;
+            }
+            heap[pos] = heap[child];
+            heapPos[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = id;
+        heapPos[id] = pos;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= heapPos.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, heapPos.length * 2);
+        nextTime = Arrays.copyOf(nextTime, newCapacity);
+        speed = Arrays.copyOf(speed, newCapacity);
+        heap = Arrays.copyOf(heap, newCapacity);
+        int oldLength = heapPos.length;
+        heapPos = Arrays.copyOf(heapPos, newCapacity);
+        Arrays.fill(heapPos, oldLength, newCapacity, -1);
+    }
+}
@@ -0,0 +1,274 @@
+package systems.battle;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Binary event log of one battle, every event is a fixed width record of 5 ints (20 bytes) in one primitive array
+ * The first int is the event type and the grid slot (type &lt;&lt; 8 | slot), UNIT events also keep the boss phase
+ * of the unit in the upper 16 bits (phase &lt;&lt; 16 | type &lt;&lt; 8 | slot), the other 4 ints are the values of the event:
+ * <pre>
+ * UNIT    hp, max hp, attack, defense      (unit on the grid when the battle starts or when it joins, phase in the header)
+ * TURN    turn number, target slot          (slot is the acting unit, the target is itself when it defends)
+ * DAMAGE  damage, crit (0/1), hp after      (slot is the unit hit)
+ * DEATH   -
+ * PHASE   phase, hp after, attack, defense  (boss phase transition)
+ * END     battle state (CombatState.WON, LOST, DRAW)
+ * </pre>
+ * Events store absolute hp and stats, so a {@link BattleReplayer} rebuilds any turn without rolling anything
+ * @author Kumail
+ * @version 1.0
+ */
+public class BattleLog {
+    /**
+     * Number of ints in one record
+     */
+    public static final int RECORD_INTS = 5;
+    /**
+     * Number of bytes in one record
+     */
+    public static final int RECORD_BYTES = RECORD_INTS * 4;
+
+    /**
+     * Unit placed on the grid
+     */
+    public static final int UNIT = 1;
+    /**
+     * Turn start and action of a unit
+     */
+    public static final int TURN = 2;
+    /**
+     * Damage roll applied to a unit
+     */
+    public static final int DAMAGE = 3;
+    /**
+     * Unit died
+     */
+    public static final int DEATH = 4;
+    /**
+     * Boss entered a new phase
+     */
+    public static final int PHASE = 5;
+    /**
+     * Battle ended
+     */
+    public static final int END = 6;
+
+    private int[] records;
+    private int size;
+
+    /**
+     * Instantiates a new empty Battle log
+     */
+    public BattleLog() {
+        this(64);
+    }
+
+    /**
+     * Instantiates a new Battle log with room for the provided number of events
+     *
+     * @param capacity the initial capacity in events
+     */
+    public BattleLog(int capacity) {
+        this.records = new int[Math.max(1, capacity) * RECORD_INTS];
+        this.size = 0;
+    }
+
+    /**
+     * Append an event
+     *
+     * @param type the event type
+     * @param slot the grid slot (0-7)
+     * @param a    the first value
+     * @param b    the second value
+     * @param c    the third value
+     * @param d    the fourth value
+     */
+    public void append(int type, int slot, int a, int b, int c, int d) {
+        if (size * RECORD_INTS == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        int base = size * RECORD_INTS;
+        records[base] = type << 8 | (slot & 0xFF);
+        records[base + 1] = a;
+        records[base + 2] = b;
+        records[base + 3] = c;
+        records[base + 4] = d;
+        size++;
+    }
+
+    /**
+     * Append a UNIT event
+     *
+     * @param slot    the grid slot (0-7)
+     * @param hp      the current hp
+     * @param maxHp   the max hp
+     * @param attack  the attack
+     * @param defense the defense
+     * @param phase   the boss phase of the unit, 0 for units without phases
+     */
+    public void appendUnit(int slot, int hp, int maxHp, int attack, int defense, int phase) {
+        append(UNIT, slot, hp, maxHp, attack, defense);
+        records[(size - 1) * RECORD_INTS] |= (phase & 0xFFFF) << 16;
+    }
+
+    /**
+     * Gets the number of events in the log.
+     *
+     * @return the size
+     */
+    public int size() { return size; }
+
+    /**
+     * Gets the type of an event.
+     *
+     * @param event the event position (0 based)
+     * @return the event type
+     */
+    public int getType(int event) { return records[check(event) * RECORD_INTS] >>> 8 & 0xFF; }
+
+    /**
+     * Gets the grid slot of an event.
+     *
+     * @param event the event position (0 based)
+     * @return the slot
+     */
+    public int getSlot(int event) { return records[check(event) * RECORD_INTS] & 0xFF; }
+
+    /**
+     * Gets the boss phase of a UNIT event.
+     *
+     * @param event the event position (0 based)
+     * @return the phase, 0 for units without phases and for other events
+     */
+    public int getPhase(int event) { return records[check(event) * RECORD_INTS] >>> 16; }
+
+    /**
+     * Gets a value of an event.
+     *
+     * @param event the event position (0 based)
+     * @param index the value index (0-3)
+     * @return the value
+     */
+    public int getValue(int event, int index) {
+        if (index < 0 || index >= RECORD_INTS - 1) {
+            throw new IndexOutOfBoundsException("Value " + index + " out of " + (RECORD_INTS - 1));
+        }
+        return records[check(event) * RECORD_INTS + 1 + index];
+    }
+
+    /**
+     * Find the first event that is different in another log, used to diff two battles
+     *
+     * @param other the other log
+     * @return the position of the first different event, -1 if the logs are the same
+     */
+    public int firstDifference(BattleLog other) {
+        int common = Math.min(size, other.size);
+        for (int i = 0; i < common; i++) {
+            int base = i * RECORD_INTS;
+            for (int k = 0; k < RECORD_INTS; k++) {
+                if (records[base + k] != other.records[base + k]) {
+                    return i;
+                }
+            }
+        }
+        return size == other.size ? -1 : common;
+    }
+
+    /**
+     * Write the log in binary (event count then the records)
+     *
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(size);
+        for (int i = 0; i < size * RECORD_INTS; i++) {
+            out.writeInt(records[i]);
+        }
+    }
+
+    /**
+     * Read a log written by {@link #writeTo(DataOutput)}
+     *
+     * @param in the input
+     * @return the log
+     * @throws IOException if reading fails
+     */
+    public static BattleLog readFrom(DataInput in) throws IOException {
+        int events = in.readInt();
+        if (events < 0) {
+            throw new IOException("Corrupted battle log, event count: " + events);
+        }
+        BattleLog log = new BattleLog(events);
+        for (int i = 0; i < events * RECORD_INTS; i++) {
+            log.records[i] = in.readInt();
+        }
+        log.size = events;
+        return log;
+    }
+
+    /**
+     * Write the whole log as text, one event per line
+     *
+     * @param out the output to write into (StringBuilder, Writer...)
+     */
+    public void writeText(Appendable out) {
+        try {
+            for (int i = 0; i < size; i++) {
+                out.append(typeName(getType(i))).append(" slot ").append(String.valueOf(getSlot(i)));
+                for (int k = 0; k < RECORD_INTS - 1; k++) {
+                    out.append(' ').append(String.valueOf(getValue(i, k)));
+                }
+                if (getType(i) == UNIT) {
+                    out.append(" phase ").append(String.valueOf(getPhase(i)));
+                }
+                out.append('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Remove all events, the allocated space is kept
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Gets the name of an event type
+     *
+     * @param type the event type
+     * @return the name
+     */
+    public static String typeName(int type) {
+        switch (type) {
+            case UNIT:
+                return "UNIT";
+            case TURN:
+                return "TURN";
+            case DAMAGE:
+                return "DAMAGE";
+            case DEATH:
+                return "DEATH";
+            case PHASE:
+                return "PHASE";
+            case END:
+                return "END";
+            default:
+                return "UNKNOWN";
+        }
+    }
+
+    private int check(int event) {
+        if (event < 0 || event >= size) {
+            throw new IndexOutOfBoundsException("Event " + event + " out of " + size);
+        }
+        return event;
+    }
+}
@@ -0,0 +1,170 @@
+package systems.battle;
+import java.util.Arrays;
+
+/**
+ * Rebuilds the state of a logged battle at any turn without rolling any random numbers
+ * Events hold absolute hp and stats, so replaying is only copying values. The replayer keeps its position,
+ * moving forward only applies the events in between (fast forward), moving back starts over from the first event
+ * @author Kumail
+ * @version 1.0
+ */
+public class BattleReplayer {
+    private final BattleLog log;
+    private final int[] turnEvents;   //position of the TURN event of every turn
+    private final int[] hp = new int[CombatState.SLOTS];
+    private final int[] maxHp = new int[CombatState.SLOTS];
+    private final int[] atk = new int[CombatState.SLOTS];
+    private final int[] def = new int[CombatState.SLOTS];
+    private final int[] phase = new int[CombatState.SLOTS];
+    private final boolean[] present = new boolean[CombatState.SLOTS];
+    private int position;
+    private int state;
+
+    /**
+     * Instantiates a new Battle replayer at the start of the battle
+     *
+     * @param log the battle log
+     */
+    public BattleReplayer(BattleLog log) {
+        this.log = log;
+        int turns = 0;
+        for (int i = 0; i < log.size(); i++) {
+            if (log.getType(i) == BattleLog.TURN) {
+                turns++;
+            }
+        }
+        turnEvents = new int[turns];
+        turns = 0;
+        for (int i = 0; i < log.size(); i++) {
+            if (log.getType(i) == BattleLog.TURN) {
+                turnEvents[turns++] = i;
+            }
+        }
+        seek(0);
+    }
+
+    /**
+     * Gets the number of turns in the log
+     *
+     * @return the turn count
+     */
+    public int getTurnCount() { return turnEvents.length; }
+
+    /**
+     * Move to the state after a number of turns, 0 is the start of the battle
+     *
+     * @param turn the number of turns played
+     */
+    public void seek(int turn) {
+        if (turn < 0 || turn > turnEvents.length) {
+            throw new IndexOutOfBoundsException("Turn " + turn + " out of " + turnEvents.length);
+        }
+        int target = turn == turnEvents.length ? log.size() : turnEvents[turn];
+        if (target < position || position == 0) {
+            Arrays.fill(hp, 0);
+            Arrays.fill(maxHp, 0);
+            Arrays.fill(atk, 0);
+            Arrays.fill(def, 0);
+            Arrays.fill(phase, 0);
+            Arrays.fill(present, false);
+            state = CombatState.IN_PROGRESS;
+            position = 0;
+        }
+        for (; position < target; position++) {
+            apply(position);
+        }
+    }
+
+    /**
+     * Move to the end of the battle
+     */
+    public void seekEnd() {
+        seek(turnEvents.length);
+    }
+
+    /**
+     * Gets the hp of a slot at the current position
+     *
+     * @param slot the slot (0-7)
+     * @return the hp
+     */
+    public int getHP(int slot) { return hp[slot]; }
+
+    /**
+     * Gets the max hp of a slot at the current position
+     *
+     * @param slot the slot (0-7)
+     * @return the max hp
+     */
+    public int getMaxHP(int slot) { return maxHp[slot]; }
+
+    /**
+     * Gets the attack of a slot at the current position
+     *
+     * @param slot the slot (0-7)
+     * @return the attack
+     */
+    public int getAttack(int slot) { return atk[slot]; }
+
+    /**
+     * Gets the defense of a slot at the current position
+     *
+     * @param slot the slot (0-7)
+     * @return the defense
+     */
+    public int getDefense(int slot) { return def[slot]; }
+
+    /**
+     * Gets the boss phase of a slot at the current position
+     *
+     * @param slot the slot (0-7)
+     * @return the phase, 0 for units without phases
+     */
+    public int getPhase(int slot) { return phase[slot]; }
+
+    /**
+     * Checks if a slot has a unit at the current position
+     *
+     * @param slot the slot (0-7)
+     * @return true if there is a unit
+     */
+    public boolean hasUnit(int slot) { return present[slot]; }
+
+    /**
+     * Gets the battle state at the current position
+     *
+     * @return CombatState.IN_PROGRESS, WON, LOST or DRAW
+     */
+    public int getState() { return state; }
+
+    private void apply(int event) {
+        int slot = log.getSlot(event);
+        switch (log.getType(event)) {
+            case BattleLog.UNIT:
+                present[slot] = true;
+                hp[slot] = log.getValue(event, 0);
+                maxHp[slot] = log.getValue(event, 1);
+                atk[slot] = log.getValue(event, 2);
+                def[slot] = log.getValue(event, 3);
+                phase[slot] = log.getPhase(event);
+                break;
+            case BattleLog.DAMAGE:
+                hp[slot] = log.getValue(event, 2);
+                break;
+            case BattleLog.DEATH:
+                hp[slot] = 0;
+                break;
+            case BattleLog.PHASE:
+                phase[slot] = log.getValue(event, 0);
+                hp[slot] = log.getValue(event, 1);
+                atk[slot] = log.getValue(event, 2);
+                def[slot] = log.getValue(event, 3);
+                break;
+            case BattleLog.END:
+                state = log.getValue(event, 0);
+                break;
+            default:
+                break;   //turns don't change state
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package systems.battle;
+import java.util.ArrayList;
+import java.util.List;
+import entities.characters.Character;
+import entities.enemies.Enemy;
+import util.random.RandomSource;
+
+/**
+ * Headless battle simulator for balance testing
+ * Runs many complete battles of a team against enemies with no input or printing,
+ * every battle starts with all units at full hp. Units are loaded into a {@link CombatState} once per run
+ * and battles run on the arrays, the units themselves are not changed.
+ * Battles follow the rules of {@link BattleSystem}
+ * @author Kumail
+ * @version 1.0
+ */
+public class BattleSimulator {
+    /**
+     * Default turn cap, battles still going after this many turns are counted as timeouts
+     */
+    public static final int DEFAULT_MAX_TURNS = 1000;
+
+    private final List<Character> team;
+    private final List<Enemy> enemies;
+    private final RandomSource random;
+    private int maxTurns = DEFAULT_MAX_TURNS;
+
+    /**
+     * Instantiates a new Battle simulator with the thread local random source
+     *
+     * @param team    the player team template
+     * @param enemies the enemies template
+     */
+    public BattleSimulator(List<Character> team, List<Enemy> enemies) {
+        this(team, enemies, RandomSource.threadLocal());
+    }
+
+    /**
+     * Instantiates a new Battle simulator
+     *
+     * @param team    the player team template
+     * @param enemies the enemies template
+     * @param random  the random source, a seeded source gives the same result every run
+     */
+    public BattleSimulator(List<Character> team, List<Enemy> enemies, RandomSource random) {
+        if (team == null || team.isEmpty() || enemies == null || enemies.isEmpty()) {
+            throw new IllegalArgumentException("Team and enemies cannot be empty");
+        }
+        this.team = new ArrayList<>(team);
+        this.enemies = new ArrayList<>(enemies);
+        this.random = random;
+    }
+
+    /**
+     * Sets the turn cap of a battle
+     *
+     * @param maxTurns the max turns, at least 1
+     */
+    public void setMaxTurns(int maxTurns) {
+        if (maxTurns < 1) {
+            throw new IllegalArgumentException("Max turns must be at least 1");
+        }
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Gets the turn cap of a battle
+     *
+     * @return the max turns
+     */
+    public int getMaxTurns() {
+        return maxTurns;
+    }
+
+    /**
+     * Runs battles until they end or hit the turn cap
+     *
+     * @param battles the number of battles
+     * @return the result of all battles
+     */
+    public Result run(int battles) {
+        CombatState state = CombatState.load(team, enemies);
+        Result result = new Result();
+        for (int b = 0; b < battles; b++) {
+            state.reset();
+            state.run(maxTurns, random);
+            result.add(state);
+        }
+        return result;
+    }
+
+    /**
+     * Results of a simulation
+     */
+    public static class Result {
+        private long battles;
+        private long wins;
+        private long losses;
+        private long draws;
+        private long timeouts;
+        private long totalTurns;
+        private int minTurns = Integer.MAX_VALUE;
+        private int maxTurns;
+        private long playerDamage;
+        private long enemyDamage;
+
+        /**
+         * Add a finished battle to the result
+         * @param battle the battle state after the battle
+         */
+        private void add(CombatState battle) {
+            battles++;
+            int state = battle.getState();
+            if (state == CombatState.WON) {
+                wins++;
+            } else if (state == CombatState.LOST) {
+                losses++;
+            } else if (state == CombatState.DRAW) {
+                draws++;
+            } else {
+                timeouts++;
+            }
+            int turns = battle.getTurnCount();
+            totalTurns += turns;
+            minTurns = Math.min(minTurns, turns);
+            maxTurns = Math.max(maxTurns, turns);
+            playerDamage += battle.getPlayerDamage();
+            enemyDamage += battle.getEnemyDamage();
+        }
+
+        /**
+         * Merge two results into a new result
+         *
+         * @param other the other result
+         * @return the merged result
+         */
+        public Result merge(Result other) {
+            Result merged = new Result();
+            merged.battles = battles + other.battles;
+            merged.wins = wins + other.wins;
+            merged.losses = losses + other.losses;
+            merged.draws = draws + other.draws;
+            merged.timeouts = timeouts + other.timeouts;
+            merged.totalTurns = totalTurns + other.totalTurns;
+            merged.minTurns = Math.min(minTurns, other.minTurns);
+            merged.maxTurns = Math.max(maxTurns, other.maxTurns);
+            merged.playerDamage = playerDamage + other.playerDamage;
+            merged.enemyDamage = enemyDamage + other.enemyDamage;
+            return merged;
+        }
+
+        /**
+         * Gets the number of battles
+         *
+         * @return the battles
+         */
+        public long getBattles() { return battles; }
+
+        /**
+         * Gets the number of battles the team won
+         *
+         * @return the wins
+         */
+        public long getWins() { return wins; }
+
+        /**
+         * Gets the number of battles the team lost
+         *
+         * @return the losses
+         */
+        public long getLosses() { return losses; }
+
+        /**
+         * Gets the number of battles where both sides died
+         *
+         * @return the draws
+         */
+        public long getDraws() { return draws; }
+
+        /**
+         * Gets the number of battles that hit the turn cap
+         *
+         * @return the timeouts
+         */
+        public long getTimeouts() { return timeouts; }
+
+        /**
+         * Gets the win rate
+         *
+         * @return the win rate (0-1)
+         */
+        public double getWinRate() { return battles == 0 ? 0 : (double) wins / battles; }
+
+        /**
+         * Gets the average turns of a battle
+         *
+         * @return the average turns
+         */
+        public double getAverageTurns() { return battles == 0 ? 0 : (double) totalTurns / battles; }
+
+        /**
+         * Gets the fewest turns of a battle
+         *
+         * @return the min turns, 0 if no battles
+         */
+        public int getMinTurns() { return battles == 0 ? 0 : minTurns; }
+
+        /**
+         * Gets the most turns of a battle
+         *
+         * @return the max turns
+         */
+        public int getMaxTurns() { return maxTurns; }
+
+        /**
+         * Gets the total damage dealt by the team
+         *
+         * @return the player damage
+         */
+        public long getPlayerDamage() { return playerDamage; }
+
+        /**
+         * Gets the total damage dealt by the enemies
+         *
+         * @return the enemy damage
+         */
+        public long getEnemyDamage() { return enemyDamage; }
+
+        /**
+         * Gets the average damage dealt by the team per battle
+         *
+         * @return the average player damage
+         */
+        public double getAveragePlayerDamage() { return battles == 0 ? 0 : (double) playerDamage / battles; }
+
+        /**
+         * Gets the average damage dealt by the enemies per battle
+         *
+         * @return the average enemy damage
+         */
+        public double getAverageEnemyDamage() { return battles == 0 ? 0 : (double) enemyDamage / battles; }
+
+        /**
+         * Print the result
+         */
+        public void printResult() {
+            System.out.println("=== Battle Simulation Result ===");
+            System.out.println("Battles: " + battles);
+            System.out.println("Win Rate: " + getWinRate() * 100 + "%");
+            System.out.println("Wins/Losses/Draws/Timeouts: " + wins + "/" + losses + "/" + draws + "/" + timeouts);
+            System.out.println("Turns (avg/min/max): " + getAverageTurns() + "/" + getMinTurns() + "/" + maxTurns);
+            System.out.println("Average Player Damage: " + getAveragePlayerDamage());
+            System.out.println("Average Enemy Damage: " + getAverageEnemyDamage());
+        }
+    }
+}
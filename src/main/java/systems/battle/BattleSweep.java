@@ -0,0 +1,223 @@
+package systems.battle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+import entities.characters.Character;
+import entities.enemies.Enemy;
+import game.GamePlay;
+import util.random.RandomSource;
+
+/**
+ * Parallel balance sweep of team compositions against difficulty levels
+ * Every (team, difficulty) cell is split into a fixed number of chunks and every chunk runs on a fork join worker
+ * with its own units, its own {@link BattleSimulator} (and combat state) and its own random stream split from the seed,
+ * so workers share nothing while battles run. Units are built on the calling thread before the workers start
+ * since entity constructors update the static id counter.
+ * Chunks and streams only depend on the seed, the same seed gives the same report no matter how many cores are used
+ * @author Kumail
+ * @version 1.0
+ */
+public class BattleSweep {
+    /**
+     * Default number of chunks per cell, fixed so results don't depend on the machine
+     */
+    public static final int DEFAULT_CHUNKS_PER_CELL = 8;
+
+    private final List<Supplier<List<Character>>> teams;
+    private final int[] difficulties;
+    private final IntFunction<List<Enemy>> enemyFactory;
+    private int chunksPerCell = DEFAULT_CHUNKS_PER_CELL;
+    private int maxTurns = BattleSimulator.DEFAULT_MAX_TURNS;
+
+    /**
+     * Instantiates a new Battle sweep using the enemies of {@link GamePlay#createEnemies(int)}
+     *
+     * @param teams        the team compositions, every supplier must build new characters on every call
+     * @param difficulties the difficulty levels
+     */
+    public BattleSweep(List<Supplier<List<Character>>> teams, int[] difficulties) {
+        this(teams, difficulties, GamePlay::createEnemies);
+    }
+
+    /**
+     * Instantiates a new Battle sweep
+     *
+     * @param teams        the team compositions, every supplier must build new characters on every call
+     * @param difficulties the difficulty levels
+     * @param enemyFactory builds new enemies for a difficulty on every call
+     */
+    public BattleSweep(List<Supplier<List<Character>>> teams, int[] difficulties,
+                       IntFunction<List<Enemy>> enemyFactory) {
+        if (teams == null || teams.isEmpty() || difficulties == null || difficulties.length == 0) {
+            throw new IllegalArgumentException("Teams and difficulties cannot be empty");
+        }
+        this.teams = new ArrayList<>(teams);
+        this.difficulties = difficulties.clone();
+        this.enemyFactory = enemyFactory;
+    }
+
+    /**
+     * Sets the number of chunks every cell is split into
+     *
+     * @param chunksPerCell the chunks per cell, at least 1
+     */
+    public void setChunksPerCell(int chunksPerCell) {
+        if (chunksPerCell < 1) {
+            throw new IllegalArgumentException("Chunks per cell must be at least 1");
+        }
+        this.chunksPerCell = chunksPerCell;
+    }
+
+    /**
+     * Sets the turn cap of a battle
+     *
+     * @param maxTurns the max turns, at least 1
+     */
+    public void setMaxTurns(int maxTurns) {
+        if (maxTurns < 1) {
+            throw new IllegalArgumentException("Max turns must be at least 1");
+        }
+        this.maxTurns = maxTurns;
+    }
+
+    /**
+     * Run the sweep on the common fork join pool (all cores)
+     *
+     * @param battlesPerCell the battles of every (team, difficulty) cell
+     * @param seed           the seed of the sweep
+     * @return the report of the sweep
+     */
+    public Report run(int battlesPerCell, long seed) {
+        return run(battlesPerCell, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Run the sweep on the provided pool
+     *
+     * @param battlesPerCell the battles of every (team, difficulty) cell
+     * @param seed           the seed of the sweep
+     * @param pool           the pool running the chunks
+     * @return the report of the sweep
+     */
+    public Report run(int battlesPerCell, long seed, ForkJoinPool pool) {
+        int cells = teams.size() * difficulties.length;
+        int tasks = cells * chunksPerCell;
+        //build everything up front on this thread, workers only run battles
+        RandomSource root = RandomSource.seeded(seed);
+        BattleSimulator[] simulators = new BattleSimulator[tasks];
+        int[] battles = new int[tasks];
+        String[] teamNames = new String[teams.size()];
+        for (int task = 0; task < tasks; task++) {
+            int cell = task / chunksPerCell;
+            int chunk = task % chunksPerCell;
+            int team = cell / difficulties.length;
+            List<Character> members = teams.get(team).get();
+            if (teamNames[team] == null) {
+                teamNames[team] = teamName(members);
+            }
+            List<Enemy> enemies = enemyFactory.apply(difficulties[cell % difficulties.length]);
+            simulators[task] = new BattleSimulator(members, enemies, root.split());
+            simulators[task].setMaxTurns(maxTurns);
+            battles[task] = battlesPerCell / chunksPerCell + (chunk < battlesPerCell % chunksPerCell ? 1 : 0);
+        }
+
+        BattleSimulator.Result[] chunkResults;
+        try {
+            chunkResults = pool.submit(() -> IntStream.range(0, tasks).parallel()
+                    .mapToObj(task -> simulators[task].run(battles[task]))
+                    .toArray(BattleSimulator.Result[]::new))
+                    .get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        BattleSimulator.Result[] cellResults = new BattleSimulator.Result[cells];
+        for (int task = 0; task < tasks; task++) {
+            int cell = task / chunksPerCell;
+            cellResults[cell] = cellResults[cell] == null ? chunkResults[task] : cellResults[cell].merge(chunkResults[task]);
+        }
+        return new Report(teamNames, difficulties.clone(), cellResults);
+    }
+
+    private static String teamName(List<Character> members) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < members.size(); i++) {
+            if (i > 0) {
+                sb.append('+');
+            }
+            sb.append(members.get(i).getName());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Results of a sweep, one result per (team, difficulty) cell
+     */
+    public static class Report {
+        private final String[] teamNames;
+        private final int[] difficulties;
+        private final BattleSimulator.Result[] results;
+
+        private Report(String[] teamNames, int[] difficulties, BattleSimulator.Result[] results) {
+            this.teamNames = teamNames;
+            this.difficulties = difficulties;
+            this.results = results;
+        }
+
+        /**
+         * Gets the result of a cell
+         *
+         * @param team            the index of the team
+         * @param difficultyIndex the index of the difficulty
+         * @return the result
+         */
+        public BattleSimulator.Result getResult(int team, int difficultyIndex) {
+            return results[team * difficulties.length + difficultyIndex];
+        }
+
+        /**
+         * Gets the number of teams
+         *
+         * @return the team count
+         */
+        public int getTeamCount() { return teamNames.length; }
+
+        /**
+         * Gets the name of a team (member names joined by +)
+         *
+         * @param team the index of the team
+         * @return the team name
+         */
+        public String getTeamName(int team) { return teamNames[team]; }
+
+        /**
+         * Gets the difficulties of the sweep
+         *
+         * @return the difficulties
+         */
+        public int[] getDifficulties() { return difficulties.clone(); }
+
+        /**
+         * Print the win rate table of the sweep
+         */
+        public void printReport() {
+            System.out.println("=== Battle Sweep Report ===");
+            StringBuilder header = new StringBuilder("Team");
+            for (int difficulty : difficulties) {
+                header.append(",Difficulty ").append(difficulty);
+            }
+            System.out.println(header);
+            for (int team = 0; team < teamNames.length; team++) {
+                StringBuilder row = new StringBuilder(teamNames[team]);
+                for (int d = 0; d < difficulties.length; d++) {
+                    BattleSimulator.Result r = getResult(team, d);
+                    row.append(',').append(r.getWinRate() * 100).append("% (").append(r.getAverageTurns()).append(" turns)");
+                }
+                System.out.println(row);
+            }
+        }
+    }
+}
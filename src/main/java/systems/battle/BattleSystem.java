@@ -1,26 +1,95 @@
 package systems.battle;
 import java.util.List;
-import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import entities.abs.BattleUnit;
 import entities.characters.Character;
 import entities.equipment.Equipment;
+import entities.enemies.BossEnemy;
 import entities.enemies.Enemy;
+import util.random.RandomSource;
 
 /**
  * Creating the battle system that manages the battles
+ * Turns are scheduled on an {@link ActionTimeline} by speed (action values), the timeline id of a unit is its
+ * grid slot (row * 4 + col). Bosses enter their next phase when they lose enough hp.
+ * When a {@link BattleLog} is set every battle is recorded as events (see {@link BattleReplayer})
+ * A turn either attacks the first alive opponent ({@link #executeTurn()}) or plays an action chosen by the caller
+ * ({@link #executeAction(int, int, int)}), a unit that defends takes double defense until its next action
  * @author Kumail
  * @version 4.0
  */
 public class BattleSystem {
+    /**
+     * Action type, normal attack
+     */
+    public static final int ACTION_ATTACK = 0;
+    /**
+     * Action type, skill 1 attack (x1.5 damage)
+     */
+    public static final int ACTION_SKILL1 = 1;
+    /**
+     * Action type, defend (defense counts double until the next action of the unit)
+     */
+    public static final int ACTION_DEFEND = 2;
+    /**
+     * Damage multiplier of skill 1
+     */
+    public static final double SKILL1_MULTIPLIER = 1.5;
+
     private final BattleUnit[][] battleGrid = new BattleUnit[2][4];
-    private final List<BattleUnit> turnOrder = new ArrayList<>();
-    private int currentTurn=0;
+    private final ActionTimeline timeline = new ActionTimeline(8);
     private String battleState = "PREPARE"; //when it just starts (PREPARE)
                                             //other states: IN_PROGRESS, WON, or LOST
+    private RandomSource random;
+    private int turnCount = 0;          //actions taken this battle
+    private int guarding = 0;           //slots that defended, bit per slot, cleared at their next action
+    private long playerDamage = 0;      //hp removed from enemies this battle
+    private long enemyDamage = 0;       //hp removed from players this battle
+    private final Map<BattleUnit, CombatStats> combatStats = new IdentityHashMap<>();  //built at battle start
+    private BattleLog log;              //null when not recording
     /**
      * Instantiates a new Battle system.
      */
-    public BattleSystem() {}
+    public BattleSystem() {
+        this(RandomSource.threadLocal());
+    }
+
+    /**
+     * Instantiates a new Battle system with a random source for damage rolls
+     *
+     * @param random the random source, a seeded source makes battles reproducible
+     */
+    public BattleSystem(RandomSource random) {
+        setRandomSource(random);
+    }
+
+    /**
+     * Sets the random source for damage rolls
+     *
+     * @param random the random source, null for the thread local source
+     */
+    public void setRandomSource(RandomSource random) {
+        this.random = random == null ? RandomSource.threadLocal() : random;
+    }
+
+    /**
+     * Sets the log recording battles, it is cleared when a battle starts
+     *
+     * @param log the battle log, null to stop recording
+     */
+    public void setBattleLog(BattleLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Gets the log recording battles
+     *
+     * @return the battle log, null when not recording
+     */
+    public BattleLog getBattleLog() {
+        return log;
+    }
 
     /**
      * The grid where the battle happens
@@ -44,73 +113,222 @@ public class BattleSystem {
             battleGrid[1][col] = enemies.get(i);
         }
 
+        refreshCombatStats();
         calculateTurnOrder();
-        currentTurn = 0;
+        turnCount = 0;
+        guarding = 0;
+        playerDamage = 0;
+        enemyDamage = 0;
         battleState = "IN_PROGRESS";
+        if (log != null) {
+            log.clear();
+            for (int slot = 0; slot < 8; slot++) {
+                logUnit(slot);
+            }
+        }
     }
 
     /**
-     * Executes a turn for the unit in the turn order
+     * Executes a turn for the unit with the next action on the timeline
      */
     public void executeTurn() {
         if (!"IN_PROGRESS".equals(battleState)) {
             return;
         }
-        if (turnOrder.isEmpty()) {
+        if (timeline.size() == 0) {
             calculateTurnOrder();
-            currentTurn = 0;
-            if (turnOrder.isEmpty()) {
+            if (timeline.size() == 0) {
                 return;
             }
         }
 
-        BattleUnit acting = turnOrder.get(currentTurn);
-        if (!acting.isAlive()) {
-            advanceTurn();
+        int slot = timeline.next();
+        BattleUnit acting = battleGrid[slot / 4][slot % 4];
+        if (acting == null || !acting.isAlive()) {
+            timeline.remove(slot);  //died outside of the battle system
             return;
         }
+        guarding &= ~(1 << slot);
         BattleUnit target = pickAliveOpponent(acting);
         if (target == null) {
-            if (checkBattleEnd()) {
-                return;
-            }
-            advanceTurn();
+            checkBattleEnd();
             return;
         }
-        //damage calculatio
-        double crit = critRateOf(acting);
-        double critDmg = critDmgOf(acting);
-        int dmg = Damage.compute(acting.getAttack(), target.getDefense(), crit, critDmg);
-        target.setCurrentHP(Math.max(0, target.getCurrentHP() - dmg));
+        act(slot, acting, ACTION_ATTACK, target);
+    }
 
-        if (checkBattleEnd()) {
-            return;   //battle ended
+    /**
+     * Executes a chosen action on the turn of a unit, the unit must have the next action on the timeline
+     * and its action is used like in {@link #executeTurn()}. Nothing happens if it is not the unit's turn
+     * or the target is not an alive opponent
+     *
+     * @param slot       the grid slot of the acting unit
+     * @param type       ACTION_ATTACK, ACTION_SKILL1 or ACTION_DEFEND
+     * @param targetSlot the grid slot of the target, ignored for ACTION_DEFEND
+     * @return true if the action was executed
+     */
+    public boolean executeAction(int slot, int type, int targetSlot) {
+        if (!"IN_PROGRESS".equals(battleState) || type < ACTION_ATTACK || type > ACTION_DEFEND) {
+            return false;
+        }
+        if (timeline.size() == 0) {
+            calculateTurnOrder();
+        }
+        //units that died outside of the battle system lose their turn, like in executeTurn
+        int next = timeline.peek();
+        while (next >= 0 && (getUnit(next) == null || !getUnit(next).isAlive())) {
+            timeline.remove(next);
+            next = timeline.peek();
+        }
+        if (next < 0 || next != slot) {
+            return false;
+        }
+        BattleUnit acting = getUnit(slot);
+        BattleUnit target = null;
+        if (type != ACTION_DEFEND) {
+            target = getUnit(targetSlot);
+            if (target == null || !target.isAlive() || (slot < 4) == (targetSlot < 4)) {
+                return false;
+            }
         }
-        advanceTurn();
+        timeline.next();
+        guarding &= ~(1 << slot);
+        act(slot, acting, type, target);
+        return true;
     }
 
     /**
-     * The turn order for the alive units by speed of each unit
+     * Rebuild the action timeline from the alive units on the grid, every unit starts a full action
      */
     public void calculateTurnOrder() {
-        turnOrder.clear();
+        timeline.clear();
         for (int j = 0; j < 2; j++) {
             for (int i = 0; i <4; i++) {
                 BattleUnit u = battleGrid[j][i];
                 if (u != null && u.isAlive()) {
-                    turnOrder.add(u);
+                    timeline.add(j * 4 + i, u.getSpeed());
                 }
             }
         }
-        for (int i= 1; i<turnOrder.size(); i++) {
-            BattleUnit key = turnOrder.get(i);
-            int j = i-1;
-            while (j>=0 && faster(key, turnOrder.get(j))) {
-                turnOrder.set(j + 1, turnOrder.get(j));
-                j--;
+    }
+
+    /**
+     * Add a unit in the middle of a battle (e.g. reinforcements), it takes the first empty or dead slot of its row
+     * and acts after one full action
+     *
+     * @param unit the unit, characters join the player row and everything else the enemy row
+     * @return true if the unit joined, false if its row is full
+     */
+    public boolean addUnit(BattleUnit unit) {
+        if (unit == null || !unit.isAlive()) {
+            return false;
+        }
+        int row = unit instanceof Character ? 0 : 1;
+        for (int k = 0; k < 4; k++) {
+            int col = row == 0 ? k : 3 - k;   //players fill left to right, enemies right to left
+            BattleUnit u = battleGrid[row][col];
+            if (u == null || !u.isAlive()) {
+                int slot = row * 4 + col;
+                timeline.remove(slot);
+                guarding &= ~(1 << slot);
+                battleGrid[row][col] = unit;
+                combatStats.put(unit, CombatStats.of(unit));
+                timeline.add(slot, unit.getSpeed());
+                logUnit(slot);
+                return true;
             }
-            turnOrder.set(j + 1, key);
         }
+        return false;
+    }
+
+    /**
+     * Change the speed of a unit during battle (speed buff or debuff), its current action is scaled to the new speed
+     *
+     * @param unit  the unit on the grid
+     * @param speed the new speed
+     */
+    public void setUnitSpeed(BattleUnit unit, int speed) {
+        unit.setSpeed(speed);
+        int slot = slotOf(unit);
+        if (timeline.contains(slot)) {
+            timeline.setSpeed(slot, speed);
+        }
+    }
+
+    /**
+     * Action advance, moves the next action of a unit forward
+     *
+     * @param unit     the unit on the grid
+     * @param fraction the part of a full action, e.g. 0.25 for 25%
+     */
+    public void advanceAction(BattleUnit unit, double fraction) {
+        int slot = slotOf(unit);
+        if (timeline.contains(slot)) {
+            timeline.advance(slot, fraction);
+        }
+    }
+
+    /**
+     * Action delay, moves the next action of a unit back
+     *
+     * @param unit     the unit on the grid
+     * @param fraction the part of a full action, e.g. 0.25 for 25%
+     */
+    public void delayAction(BattleUnit unit, double fraction) {
+        int slot = slotOf(unit);
+        if (timeline.contains(slot)) {
+            timeline.delay(slot, fraction);
+        }
+    }
+
+    /**
+     * Capture the current battle as a {@link CombatState} (hp, stats, boss phases, timeline and turn count),
+     * lookahead AI and what-if previews play on the copy without touching the units
+     *
+     * @return the combat state continuing this battle
+     */
+    public CombatState captureState() {
+        BattleUnit[] slots = new BattleUnit[8];
+        for (int slot = 0; slot < 8; slot++) {
+            slots[slot] = battleGrid[slot / 4][slot % 4];
+        }
+        CombatState state = CombatState.load(slots);
+        state.resume(timeline, turnCount, guarding);
+        return state;
+    }
+
+    /**
+     * Gets the grid slot of a unit, the slot is the unit id used by {@link CombatState}
+     *
+     * @param unit the unit
+     * @return the slot (row * 4 + col), -1 when not on the grid
+     */
+    public int getSlot(BattleUnit unit) {
+        return slotOf(unit);
+    }
+
+    /**
+     * Gets the unit of a grid slot
+     *
+     * @param slot the slot (row * 4 + col)
+     * @return the unit, null for an empty slot
+     */
+    public BattleUnit getUnit(int slot) {
+        if (slot < 0 || slot >= 8) {
+            return null;
+        }
+        return battleGrid[slot / 4][slot % 4];
+    }
+
+    /**
+     * Gets the time left before the next action of a unit
+     *
+     * @param unit the unit on the grid
+     * @return the action value, -1 if the unit has no action (dead or not on the grid)
+     */
+    public double getActionValue(BattleUnit unit) {
+        int slot = slotOf(unit);
+        return timeline.contains(slot) ? timeline.getActionValue(slot) : -1;
     }
 
     /**
@@ -134,18 +352,29 @@ public class BattleSystem {
             }
         }
         if (!playersAlive && enemiesAlive) {
-            battleState = "LOST";
+            endBattle("LOST", CombatState.LOST);
             return true;
         } else if (playersAlive && !enemiesAlive) {
-            battleState = "WON";
+            endBattle("WON", CombatState.WON);
             return true;
         } else if (!playersAlive && !enemiesAlive) {
-            battleState = "DRAW";
+            endBattle("DRAW", CombatState.DRAW);
             return true;   //idk if this is needed, added just in case
         }
         return false;
     }
 
+    /**
+     * Checks if a unit defended and takes double defense until its next action
+     *
+     * @param unit the unit on the grid
+     * @return true if the unit is defending
+     */
+    public boolean isDefending(BattleUnit unit) {
+        int slot = slotOf(unit);
+        return slot >= 0 && (guarding & (1 << slot)) != 0;
+    }
+
     /**
      * Using skills and calculating damage
      *
@@ -161,46 +390,218 @@ public class BattleSystem {
             return;
         }
 
+        turnCount++;
+        if (log != null) {
+            //skills are turns too, so replays can seek to them
+            log.append(BattleLog.TURN, slotOf(unit), turnCount, slotOf(target), 0, 0);
+        }
         double multi;
         if (skillIndex == 1) {
-            multi = 1.5;
+            multi = SKILL1_MULTIPLIER;
         } else if (skillIndex == 2) {
             multi = 2.0;
         } else {
             multi = 1.0;
         }
-        double crit = critRateOf(unit);
-        double critDmg = critDmgOf(unit);
-        int base = Damage.compute(unit.getAttack(), target.getDefense(), crit, critDmg);
-        int dmg = (int)Math.floor(base*multi);
-        target.setCurrentHP(Math.max(0, target.getCurrentHP() - Math.max(0, dmg)));
+        CombatStats stats = statsOf(unit);
+        long roll = Damage.roll(unit.getAttack(), defenseOf(target), stats.getCritRate(), stats.getCritDmg(), random);
+        int dmg = (int)Math.floor(Damage.damageOf(roll)*multi);
+        dealDamage(unit, target, Math.max(0, dmg), Damage.isCrit(roll));
 
         checkBattleEnd();
     }
 
+    /**
+     * Gets the battle state
+     *
+     * @return PREPARE, IN_PROGRESS, WON, LOST or DRAW
+     */
+    public String getBattleState() {
+        return battleState;
+    }
+
+    /**
+     * Gets the number of turns (actions) taken since the battle started
+     *
+     * @return the turn count
+     */
+    public int getTurnCount() {
+        return turnCount;
+    }
+
+    /**
+     * Gets the damage the player team dealt since the battle started (hp actually removed)
+     *
+     * @return the player damage
+     */
+    public long getPlayerDamage() {
+        return playerDamage;
+    }
+
+    /**
+     * Gets the damage the enemies dealt since the battle started (hp actually removed)
+     *
+     * @return the enemy damage
+     */
+    public long getEnemyDamage() {
+        return enemyDamage;
+    }
+
+    /**
+     * Rebuild the combat stats of every unit on the grid, call after buffs change the stats of many units
+     */
+    public void refreshCombatStats() {
+        combatStats.clear();
+        for (int row = 0; row < 2; row++) {
+            for (int col = 0; col < 4; col++) {
+                BattleUnit u = battleGrid[row][col];
+                if (u != null) {
+                    combatStats.put(u, CombatStats.of(u));
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop the cached combat stats of a unit, they are rebuilt on its next attack
+     * Equipment changes are picked up on their own, this is for buffs
+     *
+     * @param unit the unit whose stats changed
+     */
+    public void invalidateCombatStats(BattleUnit unit) {
+        combatStats.remove(unit);
+    }
+
     //helpers
 
     /**
-     * Advances turn to next unit
+     * One action of a unit whose timeline action was used, the turn is counted and recorded
+     * @param slot the grid slot of the acting unit
+     * @param acting the acting unit
+     * @param type the action type
+     * @param target the alive opponent hit, null for ACTION_DEFEND
      */
-    private void advanceTurn() {
-        currentTurn++;
-        if (currentTurn >= turnOrder.size()) {
-            calculateTurnOrder();
-            currentTurn = 0;
+    private void act(int slot, BattleUnit acting, int type, BattleUnit target) {
+        turnCount++;
+        if (type == ACTION_DEFEND) {
+            guarding |= 1 << slot;
+            if (log != null) {
+                log.append(BattleLog.TURN, slot, turnCount, slot, 0, 0);
+            }
+            return;
+        }
+        if (log != null) {
+            log.append(BattleLog.TURN, slot, turnCount, slotOf(target), 0, 0);
+        }
+        //damage calculatio
+        CombatStats stats = statsOf(acting);
+        long roll = Damage.roll(acting.getAttack(), defenseOf(target), stats.getCritRate(), stats.getCritDmg(), random);
+        int dmg = Damage.damageOf(roll);
+        if (type == ACTION_SKILL1) {
+            dmg = Math.max(0, (int) Math.floor(dmg * SKILL1_MULTIPLIER));   //same rounding as useSkill
+        }
+        dealDamage(acting, target, dmg, Damage.isCrit(roll));
+
+        checkBattleEnd();
+    }
+
+    /**
+     * Defense of a unit taking a hit, doubled while it is defending
+     * @param target the unit hit
+     * @return the defense
+     */
+    private int defenseOf(BattleUnit target) {
+        int slot = slotOf(target);
+        boolean defending = slot >= 0 && (guarding & (1 << slot)) != 0;
+        return defending ? target.getDefense() * 2 : target.getDefense();
+    }
+
+    /**
+     * Cached combat stats of a unit, rebuilt when missing or stale
+     * @param u the unit
+     * @return the combat stats
+     */
+    private CombatStats statsOf(BattleUnit u) {
+        CombatStats stats = combatStats.get(u);
+        if (stats == null || stats.isStale()) {
+            stats = CombatStats.of(u);
+            combatStats.put(u, stats);
+        }
+        return stats;
+    }
+
+    /**
+     * Removes hp from the target and adds it to the damage of the attacker's side
+     * @param attacker the unit dealing damage
+     * @param target the unit taking damage
+     * @param dmg the damage, not negative
+     */
+    private void dealDamage(BattleUnit attacker, BattleUnit target, int dmg, boolean crit) {
+        int before = target.getCurrentHP();
+        target.setCurrentHP(Math.max(0, before - dmg));
+        int dealt = before - target.getCurrentHP();
+        if (attacker instanceof Character) {
+            playerDamage += dealt;
+        } else {
+            enemyDamage += dealt;
+        }
+        int slot = slotOf(target);
+        if (log != null) {
+            log.append(BattleLog.DAMAGE, slot, dmg, crit ? 1 : 0, target.getCurrentHP(), 0);
+        }
+        if (target instanceof BossEnemy) {
+            BossEnemy boss = (BossEnemy) target;
+            if (boss.shouldTransitionPhase() && boss.advancePhase() && log != null) {
+                log.append(BattleLog.PHASE, slot, boss.getCurrentPhase(), boss.getCurrentHP(),
+                        boss.getAttack(), boss.getDefense());
+            }
+        }
+        if (!target.isAlive()) {
+            timeline.remove(slot);
+            if (log != null) {
+                log.append(BattleLog.DEATH, slot, 0, 0, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Sets the end state and records it
+     * @param state the battle state name
+     * @param code the state code of the log
+     */
+    private void endBattle(String state, int code) {
+        if (log != null && "IN_PROGRESS".equals(battleState)) {
+            log.append(BattleLog.END, 0, code, 0, 0, 0);
         }
+        battleState = state;
     }
+
     /**
-     * Helper for which unit acts first
-     * @param a the first unit being compared
-     * @param b the second unit being compared
-     * @return the unit who goes first
+     * Records the unit of a slot if there is one
+     * @param slot the grid slot
      */
-    private boolean faster(BattleUnit a, BattleUnit b) {
-        if (a.getSpeed() != b.getSpeed()) {
-            return a.getSpeed() > b.getSpeed();
+    private void logUnit(int slot) {
+        BattleUnit u = battleGrid[slot / 4][slot % 4];
+        if (log != null && u != null) {
+            int phase = u instanceof BossEnemy ? ((BossEnemy) u).getCurrentPhase() : 0;
+            log.appendUnit(slot, u.getCurrentHP(), u.getMaxHP(), u.getAttack(), u.getDefense(), phase);
+        }
+    }
+
+    /**
+     * Helper for the grid slot of a unit
+     * @param unit the unit
+     * @return the slot (row * 4 + col), -1 when not on the grid
+     */
+    private int slotOf(BattleUnit unit) {
+        for (int row = 0; row < 2; row++) {
+            for (int col = 0; col < 4; col++) {
+                if (battleGrid[row][col] == unit) {
+                    return row * 4 + col;
+                }
+            }
         }
-        return a.getName().compareTo(b.getName()) < 0;
+        return -1;
     }
     /**
      * Helper for which unit is alive 
@@ -228,7 +629,7 @@ public class BattleSystem {
      * @param u the unit that hit a crit
      * @return the determined crit rate
      */
-    private double critRateOf(BattleUnit u)  {
+    static double critRateOf(BattleUnit u)  {
         double rate = 0.0;  //0.0is 0% and 1.0 is 100%
         if(u instanceof Character) {
             Character c = (Character) u;
@@ -259,7 +660,7 @@ public class BattleSystem {
      * @param u the unit that has crit dmg
      * @return the amount of bonus damage
      */
-    private double critDmgOf(BattleUnit u)  {
+    static double critDmgOf(BattleUnit u)  {
         double bonus = 0.5;  //base crit is 50%
         if (u instanceof Character) {
             Character c = (Character) u;
@@ -284,7 +685,7 @@ public class BattleSystem {
      * @param percent the percent rate or damage
      * @return the percent as a fraction
      */
-    private double percentToFraction(int percent) {
+    private static double percentToFraction(int percent) {
         if (percent <=0) {
             return 0.0;
         }
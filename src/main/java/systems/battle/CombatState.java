@@ -0,0 +1,555 @@
+package systems.battle;
+import java.util.List;
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.enemies.BossEnemy;
+import entities.enemies.Enemy;
+import util.random.RandomSource;
+
+/**
+ * Compact battle state for simulations, one array per stat (struct of arrays) indexed by grid slot
+ * Slots 0-3 are the player row and slots 4-7 the enemy row, units are placed like {@link BattleSystem#initializeBattle}
+ * Stats, crit rate and crit damage are read from the units once when the state is loaded,
+ * so running turns never allocates, never looks up equipment stats and never checks unit types.
+ * Turns are scheduled on an {@link ActionTimeline} using the slot as the unit id.
+ * {@link #snapshot()} and {@link #restore(Snapshot)} let lookahead AI and what-if previews try many branches:
+ * a snapshot shares the hp and buff arrays with the state (copy on write), the state copies an array
+ * only when it changes it after a snapshot
+ * Turns follow the same rules as {@link BattleSystem#executeTurn()} and use the random source the same way,
+ * so the same seed gives the same battle on both
+ * @author Kumail
+ * @version 1.0
+ */
+public class CombatState {
+    /**
+     * Number of slots (2 rows of 4)
+     */
+    public static final int SLOTS = 8;
+    /**
+     * First slot of the enemy row
+     */
+    public static final int ENEMY_ROW = 4;
+
+    /**
+     * Battle state, units are fighting
+     */
+    public static final int IN_PROGRESS = 0;
+    /**
+     * Battle state, player team won
+     */
+    public static final int WON = 1;
+    /**
+     * Battle state, player team lost
+     */
+    public static final int LOST = 2;
+    /**
+     * Battle state, both sides died
+     */
+    public static final int DRAW = 3;
+
+    private final BattleUnit[] units = new BattleUnit[SLOTS];
+    //hp and buff arrays can be shared with snapshots, see shared
+    int[] hp = new int[SLOTS];
+    final int[] maxHp = new int[SLOTS];
+    int[] atk = new int[SLOTS];
+    int[] def = new int[SLOTS];
+    final int[] spd = new int[SLOTS];
+    final double[] critRate = new double[SLOTS];
+    final double[] critDmg = new double[SLOTS];
+    int[] phase = new int[SLOTS];
+    final int[] phaseCount = new int[SLOTS];    //0 for units without phases
+    //stats when loaded, a reset goes back to them
+    private final int[] loadedAtk = new int[SLOTS];
+    private final int[] loadedDef = new int[SLOTS];
+    private final int[] loadedPhase = new int[SLOTS];
+
+    //arrays shared with a snapshot, copied before the next write
+    private static final int SHARED_HP = 1;
+    private static final int SHARED_ATK = 2;
+    private static final int SHARED_DEF = 4;
+    private static final int SHARED_PHASE = 8;
+    private static final int SHARED_ALL = 15;
+    private int shared;
+
+    private final ActionTimeline timeline = new ActionTimeline(SLOTS);
+    private int guarding;   //slots that defended, bit per slot, cleared at their next action
+    private int state;
+    private int turnCount;
+    private long playerDamage;
+    private long enemyDamage;
+
+    private CombatState() {}
+
+    /**
+     * Load a battle state from the object model, the units are placed on the grid and the battle is started
+     *
+     * @param playerTeam the player characters (first 4 are used)
+     * @param enemies    the enemies (first 4 are used)
+     * @return the battle state
+     */
+    public static CombatState load(List<Character> playerTeam, List<Enemy> enemies) {
+        BattleUnit[] slots = new BattleUnit[SLOTS];
+        for (int i = 0; i < playerTeam.size() && i < 4; i++) {
+            slots[i] = playerTeam.get(i);
+        }
+        //enemies move right to left
+        for (int i = 0; i < enemies.size() && i < 4; i++) {
+            slots[ENEMY_ROW + 3 - i] = enemies.get(i);
+        }
+        CombatState s = load(slots);
+        s.start();
+        return s;
+    }
+
+    /**
+     * Load the units of the grid slots, the battle is not started
+     * @param slots the unit of every slot, null for empty
+     * @return the battle state
+     */
+    static CombatState load(BattleUnit[] slots) {
+        CombatState s = new CombatState();
+        System.arraycopy(slots, 0, s.units, 0, SLOTS);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            BattleUnit u = s.units[slot];
+            if (u == null) {
+                continue;
+            }
+            s.hp[slot] = u.getCurrentHP();
+            s.maxHp[slot] = u.getMaxHP();
+            s.atk[slot] = u.getAttack();
+            s.def[slot] = u.getDefense();
+            s.spd[slot] = u.getSpeed();
+            CombatStats stats = CombatStats.of(u);
+            s.critRate[slot] = stats.getCritRate();
+            s.critDmg[slot] = stats.getCritDmg();
+            if (u instanceof BossEnemy && ((BossEnemy) u).hasPhases()) {
+                BossEnemy boss = (BossEnemy) u;
+                s.phase[slot] = boss.getCurrentPhase();
+                s.phaseCount[slot] = boss.getPhaseMessages().length;
+            }
+            s.loadedAtk[slot] = s.atk[slot];
+            s.loadedDef[slot] = s.def[slot];
+            s.loadedPhase[slot] = s.phase[slot];
+        }
+        return s;
+    }
+
+    /**
+     * Continue a battle from a battle system: copies its timeline, turn count and defending units
+     * @param timeline the timeline of the battle system
+     * @param turnCount the turns taken so far
+     * @param guarding the slots defending, bit per slot
+     */
+    void resume(ActionTimeline timeline, int turnCount, int guarding) {
+        this.timeline.copyFrom(timeline);
+        this.turnCount = turnCount;
+        this.guarding = guarding;
+        this.state = IN_PROGRESS;
+        checkBattleEnd();
+    }
+
+    /**
+     * Put every unit back to full hp and its loaded stats and phase, then start a new battle
+     */
+    public void reset() {
+        writable(SHARED_ALL);
+        for (int slot = 0; slot < SLOTS; slot++) {
+            hp[slot] = maxHp[slot];
+            atk[slot] = loadedAtk[slot];
+            def[slot] = loadedDef[slot];
+            phase[slot] = loadedPhase[slot];
+        }
+        start();
+    }
+
+    /**
+     * Write the hp, attack, defense and boss phase of every unit back to the object model
+     */
+    public void writeBack() {
+        for (int slot = 0; slot < SLOTS; slot++) {
+            BattleUnit u = units[slot];
+            if (u == null) {
+                continue;
+            }
+            u.setCurrentHP(hp[slot]);
+            u.setAttack(atk[slot]);
+            u.setDefense(def[slot]);
+            if (phaseCount[slot] > 0) {
+                ((BossEnemy) u).setCurrentPhase(phase[slot]);
+            }
+        }
+    }
+
+    /**
+     * Run turns until the battle ends or hits the turn cap
+     *
+     * @param maxTurns the turn cap
+     * @param random   the random source for damage rolls
+     * @return the battle state (IN_PROGRESS if the cap was hit)
+     */
+    public int run(int maxTurns, RandomSource random) {
+        //steps that take no turn (empty timeline, unit killed outside) are capped too
+        int maxSteps = maxTurns * (SLOTS + 1);
+        for (int steps = 0; state == IN_PROGRESS && turnCount < maxTurns && steps < maxSteps; steps++) {
+            executeTurn(random);
+        }
+        return state;
+    }
+
+    /**
+     * Executes a turn for the unit in the turn order
+     *
+     * @param random the random source for damage rolls
+     */
+    public void executeTurn(RandomSource random) {
+        if (state != IN_PROGRESS) {
+            return;
+        }
+        int acting = timeline.next();
+        if (acting < 0) {
+            return;
+        }
+        if (hp[acting] <= 0) {
+            timeline.remove(acting);
+            return;
+        }
+        guarding &= ~(1 << acting);
+        int target = pickAliveOpponent(acting);
+        if (target < 0) {
+            checkBattleEnd();
+            return;
+        }
+        attack(acting, target, random);
+    }
+
+    /**
+     * The acting unit attacks a target, used by turns and by AI trying other targets
+     * Time does not move, {@link #nextActor()} gives the unit whose turn it is
+     *
+     * @param acting the slot of the attacking unit
+     * @param target the slot of the target, must be alive
+     * @param random the random source for the damage roll
+     */
+    public void attack(int acting, int target, RandomSource random) {
+        attack(acting, target, 1.0, random);
+    }
+
+    /**
+     * The acting unit attacks a target with a damage multiplier, same rounding as {@link BattleSystem#useSkill}
+     *
+     * @param acting     the slot of the attacking unit
+     * @param target     the slot of the target, must be alive
+     * @param multiplier the damage multiplier (1.5 for SKILL1)
+     * @param random     the random source for the damage roll
+     */
+    public void attack(int acting, int target, double multiplier, RandomSource random) {
+        writable(SHARED_HP);
+        int targetDef = (guarding & (1 << target)) != 0 ? def[target] * 2 : def[target];
+        int dmg = Damage.compute(atk[acting], targetDef, critRate[acting], critDmg[acting], random);
+        if (multiplier != 1.0) {
+            dmg = Math.max(0, (int) Math.floor(dmg * multiplier));
+        }
+        int dealt = Math.min(dmg, hp[target]);
+        hp[target] -= dealt;
+        if (acting < ENEMY_ROW) {
+            playerDamage += dealt;
+        } else {
+            enemyDamage += dealt;
+        }
+        turnCount++;
+        if (phase[target] < phaseCount[target]
+                && hp[target] < maxHp[target] - phase[target] * (maxHp[target] / phaseCount[target])) {
+            //same as BossEnemy.advancePhase
+            writable(SHARED_ATK | SHARED_DEF | SHARED_PHASE);
+            phase[target]++;
+            hp[target] = Math.min(hp[target] + maxHp[target] / 2, maxHp[target]);
+            atk[target] += BossEnemy.PHASE_ATTACK_BONUS;
+            def[target] += BossEnemy.PHASE_DEFENSE_BONUS;
+        }
+        if (hp[target] == 0) {
+            timeline.remove(target);
+        }
+        checkBattleEnd();
+    }
+
+    /**
+     * The acting unit defends instead of attacking, its defense counts double until its next action
+     * (same as {@link BattleSystem#executeAction} with {@link BattleSystem#ACTION_DEFEND})
+     *
+     * @param acting the slot of the defending unit
+     */
+    public void defend(int acting) {
+        guarding |= 1 << acting;
+        turnCount++;
+    }
+
+    /**
+     * Move time to the next unit that can act and return it, dead units are dropped from the timeline
+     *
+     * @return the slot of the unit, -1 if the battle is over or nobody can act
+     */
+    public int nextActor() {
+        while (state == IN_PROGRESS) {
+            int acting = timeline.next();
+            if (acting < 0) {
+                return -1;
+            }
+            if (hp[acting] > 0) {
+                guarding &= ~(1 << acting);
+                return acting;
+            }
+            timeline.remove(acting);
+        }
+        return -1;
+    }
+
+    /**
+     * Take a snapshot of the battle (hp, buffs, boss phases, defending units, timeline, turn count)
+     * Nothing is copied except the timeline, the arrays are shared until the state changes them
+     *
+     * @return the snapshot
+     */
+    public Snapshot snapshot() {
+        shared = SHARED_ALL;
+        ActionTimeline copy = new ActionTimeline(SLOTS);
+        copy.copyFrom(timeline);
+        return new Snapshot(this, hp, atk, def, phase, copy, guarding, state, turnCount, playerDamage, enemyDamage);
+    }
+
+    /**
+     * Go back to a snapshot of this state, the snapshot can be restored again later
+     *
+     * @param snapshot the snapshot
+     */
+    public void restore(Snapshot snapshot) {
+        if (snapshot.owner != this) {
+            throw new IllegalArgumentException("Snapshot belongs to another battle state");
+        }
+        hp = snapshot.hp;
+        atk = snapshot.atk;
+        def = snapshot.def;
+        phase = snapshot.phase;
+        shared = SHARED_ALL;
+        timeline.copyFrom(snapshot.timeline);
+        guarding = snapshot.guarding;
+        state = snapshot.state;
+        turnCount = snapshot.turnCount;
+        playerDamage = snapshot.playerDamage;
+        enemyDamage = snapshot.enemyDamage;
+    }
+
+    /**
+     * Checks if the unit of a slot is alive
+     *
+     * @param slot the slot (0-7)
+     * @return true if there is a unit with hp left
+     */
+    public boolean isAlive(int slot) { return units[slot] != null && hp[slot] > 0; }
+
+    /**
+     * Checks if the battle ended and updates the state
+     *
+     * @return true if battle has ended
+     */
+    public boolean checkBattleEnd() {
+        boolean playersAlive = false;
+        boolean enemiesAlive = false;
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (units[slot] != null && hp[slot] > 0) {
+                if (slot < ENEMY_ROW) {
+                    playersAlive = true;
+                } else {
+                    enemiesAlive = true;
+                }
+            }
+        }
+        if (!playersAlive && enemiesAlive) {
+            state = LOST;
+        } else if (playersAlive && !enemiesAlive) {
+            state = WON;
+        } else if (!playersAlive && !enemiesAlive) {
+            state = DRAW;
+        }
+        return state != IN_PROGRESS;
+    }
+
+    /**
+     * Gets the battle state
+     *
+     * @return IN_PROGRESS, WON, LOST or DRAW
+     */
+    public int getState() { return state; }
+
+    /**
+     * Gets the battle state as the names used by {@link BattleSystem#getBattleState()}
+     *
+     * @return IN_PROGRESS, WON, LOST or DRAW
+     */
+    public String getBattleState() {
+        switch (state) {
+            case WON:
+                return "WON";
+            case LOST:
+                return "LOST";
+            case DRAW:
+                return "DRAW";
+            default:
+                return "IN_PROGRESS";
+        }
+    }
+
+    /**
+     * Gets the number of turns (actions) taken since the battle started
+     *
+     * @return the turn count
+     */
+    public int getTurnCount() { return turnCount; }
+
+    /**
+     * Gets the damage the player team dealt since the battle started
+     *
+     * @return the player damage
+     */
+    public long getPlayerDamage() { return playerDamage; }
+
+    /**
+     * Gets the damage the enemies dealt since the battle started
+     *
+     * @return the enemy damage
+     */
+    public long getEnemyDamage() { return enemyDamage; }
+
+    /**
+     * Gets the unit of a slot
+     *
+     * @param slot the slot (0-7)
+     * @return the unit, null for an empty slot
+     */
+    public BattleUnit getUnit(int slot) { return units[slot]; }
+
+    /**
+     * Gets the hp of a slot
+     *
+     * @param slot the slot (0-7)
+     * @return the hp, 0 for an empty slot
+     */
+    public int getHP(int slot) { return hp[slot]; }
+
+    /**
+     * Gets the max hp of a slot
+     *
+     * @param slot the slot (0-7)
+     * @return the max hp, 0 for an empty slot
+     */
+    public int getMaxHP(int slot) { return maxHp[slot]; }
+
+    /**
+     * Checks if the unit of a slot is defending
+     *
+     * @param slot the slot (0-7)
+     * @return true if the unit defended and did not act since
+     */
+    public boolean isDefending(int slot) { return (guarding & (1 << slot)) != 0; }
+
+    /**
+     * First alive unit of the opposing row, the target normal turns attack
+     * @param acting the slot of the acting unit
+     * @return the slot of the target, -1 when no target
+     */
+    public int pickAliveOpponent(int acting) {
+        int first = acting < ENEMY_ROW ? ENEMY_ROW : 0;
+        for (int slot = first; slot < first + 4; slot++) {
+            if (units[slot] != null && hp[slot] > 0) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    //helpers
+
+    /**
+     * Copy the arrays still shared with a snapshot before writing them
+     * @param arrays the arrays about to be written (SHARED_ flags)
+     */
+    private void writable(int arrays) {
+        int copy = shared & arrays;
+        if (copy == 0) {
+            return;
+        }
+        if ((copy & SHARED_HP) != 0) {
+            hp = hp.clone();
+        }
+        if ((copy & SHARED_ATK) != 0) {
+            atk = atk.clone();
+        }
+        if ((copy & SHARED_DEF) != 0) {
+            def = def.clone();
+        }
+        if ((copy & SHARED_PHASE) != 0) {
+            phase = phase.clone();
+        }
+        shared &= ~copy;
+    }
+
+    private void start() {
+        turnCount = 0;
+        playerDamage = 0;
+        enemyDamage = 0;
+        state = IN_PROGRESS;
+        guarding = 0;
+        timeline.clear();
+        for (int slot = 0; slot < SLOTS; slot++) {
+            if (units[slot] != null && hp[slot] > 0) {
+                timeline.add(slot, spd[slot]);
+            }
+        }
+    }
+
+    /**
+     * Saved battle state, only valid for the state it was taken from
+     */
+    public static final class Snapshot {
+        private final CombatState owner;
+        private final int[] hp;
+        private final int[] atk;
+        private final int[] def;
+        private final int[] phase;
+        private final ActionTimeline timeline;
+        private final int guarding;
+        private final int state;
+        private final int turnCount;
+        private final long playerDamage;
+        private final long enemyDamage;
+
+        private Snapshot(CombatState owner, int[] hp, int[] atk, int[] def, int[] phase, ActionTimeline timeline,
+                         int guarding, int state, int turnCount, long playerDamage, long enemyDamage) {
+            this.owner = owner;
+            this.hp = hp;
+            this.atk = atk;
+            this.def = def;
+            this.phase = phase;
+            this.timeline = timeline;
+            this.guarding = guarding;
+            this.state = state;
+            this.turnCount = turnCount;
+            this.playerDamage = playerDamage;
+            this.enemyDamage = enemyDamage;
+        }
+
+        /**
+         * Gets the hp of a slot when the snapshot was taken
+         *
+         * @param slot the slot (0-7)
+         * @return the hp
+         */
+        public int getHP(int slot) { return hp[slot]; }
+
+        /**
+         * Gets the turn count when the snapshot was taken
+         *
+         * @return the turn count
+         */
+        public int getTurnCount() { return turnCount; }
+    }
+}
@@ -0,0 +1,91 @@
+package systems.battle;
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.equipment.Equipment;
+
+/**
+ * Derived combat stats of a unit (crit rate and crit damage from equipment), built once and reused for every attack
+ * The snapshot remembers the equipment revision of the character it was built from and the stats revisions
+ * of the equipped gear, so it goes stale on its own when equipment changes or equipped gear is enhanced. Buffs that change the stats must invalidate it
+ * (see {@link BattleSystem#invalidateCombatStats(BattleUnit)})
+ * @author Kumail
+ * @version 1.0
+ */
+public final class CombatStats {
+    private final Character owner;   //null for enemies, their stats never change
+    private final int revision;
+    private final int gearRevision;
+    private final double critRate;
+    private final double critDmg;
+
+    private CombatStats(Character owner, int revision, int gearRevision, double critRate, double critDmg) {
+        this.owner = owner;
+        this.revision = revision;
+        this.gearRevision = gearRevision;
+        this.critRate = critRate;
+        this.critDmg = critDmg;
+    }
+
+    /**
+     * Build the combat stats of a unit
+     *
+     * @param u the unit
+     * @return the combat stats
+     */
+    public static CombatStats of(BattleUnit u) {
+        Character owner = null;
+        int revision = 0;
+        int gearRevision = 0;
+        if (u instanceof Character) {
+            owner = (Character) u;
+            revision = owner.getEquipmentRevision();
+            gearRevision = gearRevisionOf(owner);
+        }
+        return new CombatStats(owner, revision, gearRevision, BattleSystem.critRateOf(u), BattleSystem.critDmgOf(u));
+    }
+
+    /**
+     * Checks if the equipment of the unit or the stats of the equipped gear changed since the stats were built
+     *
+     * @return true if the stats must be rebuilt
+     */
+    public boolean isStale() {
+        return owner != null
+                && (owner.getEquipmentRevision() != revision || gearRevisionOf(owner) != gearRevision);
+    }
+
+    /**
+     * Sum of the stats revisions of the equipped gear, revisions only grow so the sum changes
+     * whenever a piece of the same gear changes
+     */
+    private static int gearRevisionOf(Character c) {
+        Equipment[] gear = c.getEquippedItems();
+        int sum = 0;
+        if (gear != null) {
+            for (Equipment e : gear) {
+                if (e != null) {
+                    sum += e.getRevision();
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Gets crit rate
+     *
+     * @return the crit rate (0-1)
+     */
+    public double getCritRate() {
+        return critRate;
+    }
+
+    /**
+     * Gets crit damage (bonus damage of a crit)
+     *
+     * @return the crit damage
+     */
+    public double getCritDmg() {
+        return critDmg;
+    }
+}
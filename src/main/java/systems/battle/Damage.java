@@ -1,5 +1,5 @@
 package systems.battle;
-import java.util.Random;
+import util.random.RandomSource;
 
 /**
  * The damage calculator for combat
@@ -7,7 +7,6 @@ import java.util.Random;
  * @version 4.0
  */
 public final class Damage{
-    private static final Random RNG = new Random();
     private Damage() {}
 
 
@@ -21,19 +20,68 @@ public final class Damage{
      * @return the total damage, never less than zero
      */
     public static int compute(int atk, int def, double crit, double critDmg) {
+        return compute(atk, def, crit, critDmg, RandomSource.threadLocal());
+    }
+
+    /**
+     * Compute the damage with a provided random source, a seeded source makes the damage reproducible
+     *
+     * @param atk     the base attack damage
+     * @param def     the defense of target
+     * @param crit    the chance of crit
+     * @param critDmg the crit damage (bonus dmg)
+     * @param rng     the random source for variance and crit rolls
+     * @return the total damage, never less than zero
+     */
+    public static int compute(int atk, int def, double crit, double critDmg, RandomSource rng) {
+        return damageOf(roll(atk, def, crit, critDmg, rng));
+    }
+
+    /**
+     * Roll the damage and keep whether it was a crit, both are packed in one long so nothing is allocated
+     * Use {@link #damageOf(long)} and {@link #isCrit(long)} to read the roll
+     *
+     * @param atk     the base attack damage
+     * @param def     the defense of target
+     * @param crit    the chance of crit
+     * @param critDmg the crit damage (bonus dmg)
+     * @param rng     the random source for variance and crit rolls
+     * @return the packed roll
+     */
+    public static long roll(int atk, int def, double crit, double critDmg, RandomSource rng) {
         final double def_Factor = 0.5;           //TBD value idk what to put the number at rn, so it will be at 0.5
         int base = (int)Math.max(1, Math.round(atk - def * def_Factor));
 
         //basically gives the damage a range 
-        double variance = 0.85 + RNG.nextDouble() * 0.15;  
+        double variance = 0.85 + rng.nextDouble() * 0.15;  
         double dmg = base * variance;
         //checks if the attack is a crit or not
-        boolean isCrit = RNG.nextDouble() <clamp01(crit);
+        boolean isCrit = rng.nextDouble() <clamp01(crit);
         if (isCrit) {
             dmg *= (1.0 + Math.max(0.0, critDmg));
         }
         int out = (int)Math.floor(dmg);
-        return Math.max(0, out);
+        return (long) Math.max(0, out) << 1 | (isCrit ? 1 : 0);
+    }
+
+    /**
+     * Gets the damage of a roll
+     *
+     * @param roll the packed roll
+     * @return the damage, never less than zero
+     */
+    public static int damageOf(long roll) {
+        return (int) (roll >>> 1);
+    }
+
+    /**
+     * Checks if a roll was a crit
+     *
+     * @param roll the packed roll
+     * @return true if crit
+     */
+    public static boolean isCrit(long roll) {
+        return (roll & 1) != 0;
     }
 
     /**
@@ -0,0 +1,389 @@
+package systems.battle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import entities.abs.BattleUnit;
+import entities.characters.Character;
+import entities.enemies.BossEnemy;
+import entities.enemies.Enemy;
+import util.random.RandomSource;
+
+/**
+ * Wave and raid battle mode without the 2x4 grid of {@link BattleSystem}, any number of units per side
+ * Every unit gets an id when it joins (players first, then enemies in spawn order), ids are never reused.
+ * The alive units of each side are kept in a BitSet with a count, so the end of the battle is checked in O(1)
+ * and a unit dying is O(1) plus its removal from the {@link ActionTimeline} (O(log n)).
+ * Units attack the first alive opponent like {@link BattleSystem}, dead units never come back so the first alive
+ * id of a side only moves forward and finding it is amortized O(1).
+ * When every enemy of a wave is dead the next wave joins, the battle is won after the last wave.
+ * Raid bosses can call in adds during a wave with {@link #spawnEnemy(Enemy)}
+ * @author Kumail
+ * @version 1.0
+ */
+public class RaidBattle {
+    private final List<Character> team;
+    private final List<List<Enemy>> waves;
+    private final List<BattleUnit> units = new ArrayList<>();   //by id
+    private CombatStats[] combatStats = new CombatStats[16];     //by id, built when the unit joins
+    private final BitSet alivePlayers = new BitSet();
+    private final BitSet aliveEnemies = new BitSet();
+    private int alivePlayerCount;
+    private int aliveEnemyCount;
+    private int firstPlayer;        //no alive player below this id
+    private int firstEnemy;         //no alive enemy below this id
+    private final ActionTimeline timeline = new ActionTimeline(16);
+    private RandomSource random;
+    private String battleState = "PREPARE";
+    private int wave;
+    private int turnCount;
+    private long playerDamage;
+    private long enemyDamage;
+
+    /**
+     * Instantiates a new Raid battle
+     *
+     * @param team  the player characters
+     * @param waves the enemies of every wave, in order
+     */
+    public RaidBattle(List<Character> team, List<List<Enemy>> waves) {
+        this(team, waves, RandomSource.threadLocal());
+    }
+
+    /**
+     * Instantiates a new Raid battle with a random source for damage rolls
+     *
+     * @param team   the player characters
+     * @param waves  the enemies of every wave, in order
+     * @param random the random source, a seeded source makes battles reproducible
+     */
+    public RaidBattle(List<Character> team, List<List<Enemy>> waves, RandomSource random) {
+        this.team = new ArrayList<>(team);
+        this.waves = new ArrayList<>(waves);
+        setRandomSource(random);
+    }
+
+    /**
+     * Sets the random source for damage rolls
+     *
+     * @param random the random source, null for the thread local source
+     */
+    public void setRandomSource(RandomSource random) {
+        this.random = random == null ? RandomSource.threadLocal() : random;
+    }
+
+    /**
+     * Start the battle with the team and the first wave
+     */
+    public void start() {
+        units.clear();
+        Arrays.fill(combatStats, null);
+        alivePlayers.clear();
+        aliveEnemies.clear();
+        alivePlayerCount = 0;
+        aliveEnemyCount = 0;
+        firstPlayer = 0;
+        firstEnemy = 0;
+        timeline.clear();
+        turnCount = 0;
+        playerDamage = 0;
+        enemyDamage = 0;
+        wave = 0;
+        battleState = "IN_PROGRESS";
+        for (Character c : team) {
+            join(c);
+        }
+        if (!waves.isEmpty()) {
+            for (Enemy e : waves.get(0)) {
+                join(e);
+            }
+        }
+        checkBattleEnd();
+    }
+
+    /**
+     * Add an enemy to the current wave (raid adds), it acts after one full action
+     *
+     * @param enemy the enemy
+     * @return the id of the enemy, -1 if the battle is not in progress
+     */
+    public int spawnEnemy(Enemy enemy) {
+        if (!"IN_PROGRESS".equals(battleState) || enemy == null) {
+            return -1;
+        }
+        return join(enemy);
+    }
+
+    /**
+     * Executes a turn for the unit with the next action on the timeline
+     */
+    public void executeTurn() {
+        if (!"IN_PROGRESS".equals(battleState)) {
+            return;
+        }
+        int id = timeline.next();
+        if (id < 0) {
+            checkBattleEnd();
+            return;
+        }
+        BattleUnit acting = units.get(id);
+        if (!acting.isAlive()) {
+            kill(id);   //died outside of the battle
+            checkBattleEnd();
+            return;
+        }
+        int target = firstAliveOpponent(acting instanceof Character);
+        if (target < 0) {
+            checkBattleEnd();
+            return;
+        }
+        turnCount++;
+        CombatStats stats = statsOf(id);
+        BattleUnit t = units.get(target);
+        long roll = Damage.roll(acting.getAttack(), t.getDefense(), stats.getCritRate(), stats.getCritDmg(), random);
+        dealDamage(acting, target, Damage.damageOf(roll));
+        checkBattleEnd();
+    }
+
+    /**
+     * Run turns until the battle ends or hits the turn cap
+     *
+     * @param maxTurns the turn cap
+     * @return the battle state (IN_PROGRESS if the cap was hit)
+     */
+    public String run(int maxTurns) {
+        //steps that take no turn drop a dead unit, so there are at most as many as units
+        for (long steps = 0; "IN_PROGRESS".equals(battleState) && turnCount < maxTurns
+                && steps <= (long) maxTurns + units.size(); steps++) {
+            executeTurn();
+        }
+        return battleState;
+    }
+
+    /**
+     * Checks if the battle ended, starts the next wave when the current one is cleared
+     *
+     * @return true if battle has ended
+     */
+    public boolean checkBattleEnd() {
+        if (!"IN_PROGRESS".equals(battleState)) {
+            return !"PREPARE".equals(battleState);
+        }
+        while (aliveEnemyCount == 0 && alivePlayerCount > 0 && wave + 1 < waves.size()) {
+            wave++;
+            for (Enemy e : waves.get(wave)) {
+                join(e);
+            }
+        }
+        if (alivePlayerCount == 0 && aliveEnemyCount > 0) {
+            battleState = "LOST";
+        } else if (alivePlayerCount > 0 && aliveEnemyCount == 0) {
+            battleState = "WON";
+        } else if (alivePlayerCount == 0) {
+            battleState = "DRAW";
+        }
+        return !"IN_PROGRESS".equals(battleState);
+    }
+
+    /**
+     * Gets the battle state
+     *
+     * @return PREPARE, IN_PROGRESS, WON, LOST or DRAW
+     */
+    public String getBattleState() { return battleState; }
+
+    /**
+     * Gets the current wave
+     *
+     * @return the wave (0 based)
+     */
+    public int getWave() { return wave; }
+
+    /**
+     * Gets the number of waves
+     *
+     * @return the wave count
+     */
+    public int getWaveCount() { return waves.size(); }
+
+    /**
+     * Gets the number of alive players
+     *
+     * @return the alive player count
+     */
+    public int getAlivePlayerCount() { return alivePlayerCount; }
+
+    /**
+     * Gets the number of alive enemies in the current wave
+     *
+     * @return the alive enemy count
+     */
+    public int getAliveEnemyCount() { return aliveEnemyCount; }
+
+    /**
+     * Gets the alive enemies in id order (targets list for the UI or the AI)
+     *
+     * @return the alive enemies
+     */
+    public List<BattleUnit> getAliveEnemies() {
+        return aliveUnits(aliveEnemies, aliveEnemyCount);
+    }
+
+    /**
+     * Gets the alive players in id order
+     *
+     * @return the alive players
+     */
+    public List<BattleUnit> getAlivePlayers() {
+        return aliveUnits(alivePlayers, alivePlayerCount);
+    }
+
+    /**
+     * Gets the unit of an id
+     *
+     * @param id the id given when the unit joined
+     * @return the unit
+     */
+    public BattleUnit getUnit(int id) { return units.get(id); }
+
+    /**
+     * Gets the number of units that joined the battle
+     *
+     * @return the unit count
+     */
+    public int getUnitCount() { return units.size(); }
+
+    /**
+     * Gets the number of turns (actions) taken since the battle started
+     *
+     * @return the turn count
+     */
+    public int getTurnCount() { return turnCount; }
+
+    /**
+     * Gets the damage the player team dealt since the battle started
+     *
+     * @return the player damage
+     */
+    public long getPlayerDamage() { return playerDamage; }
+
+    /**
+     * Gets the damage the enemies dealt since the battle started
+     *
+     * @return the enemy damage
+     */
+    public long getEnemyDamage() { return enemyDamage; }
+
+    //helpers
+
+    /**
+     * Give a unit the next id, put it on the timeline and in the alive set of its side
+     * @param u the unit
+     * @return the id
+     */
+    private int join(BattleUnit u) {
+        int id = units.size();
+        units.add(u);
+        if (id == combatStats.length) {
+            combatStats = Arrays.copyOf(combatStats, id * 2);
+        }
+        combatStats[id] = CombatStats.of(u);
+        if (u.isAlive()) {
+            if (u instanceof Character) {
+                alivePlayers.set(id);
+                alivePlayerCount++;
+            } else {
+                aliveEnemies.set(id);
+                aliveEnemyCount++;
+            }
+            timeline.add(id, u.getSpeed());
+        }
+        return id;
+    }
+
+    /**
+     * Remove a dead unit from its alive set and the timeline
+     * @param id the id of the unit
+     */
+    private void kill(int id) {
+        if (alivePlayers.get(id)) {
+            alivePlayers.clear(id);
+            alivePlayerCount--;
+        } else if (aliveEnemies.get(id)) {
+            aliveEnemies.clear(id);
+            aliveEnemyCount--;
+        }
+        timeline.remove(id);
+    }
+
+    /**
+     * First alive unit of the other side, units killed outside of the battle are dropped on the way
+     * @param player true when a player is acting
+     * @return the id of the target, -1 when no target
+     */
+    private int firstAliveOpponent(boolean player) {
+        BitSet alive = player ? aliveEnemies : alivePlayers;
+        int id = alive.nextSetBit(player ? firstEnemy : firstPlayer);
+        while (id >= 0 && !units.get(id).isAlive()) {
+            kill(id);
+            id = alive.nextSetBit(id + 1);
+        }
+        if (id >= 0) {
+            if (player) {
+                firstEnemy = id;
+            } else {
+                firstPlayer = id;
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Cached combat stats of a unit, rebuilt when stale
+     * @param id the id of the unit
+     * @return the combat stats
+     */
+    private CombatStats statsOf(int id) {
+        CombatStats stats = combatStats[id];
+        if (stats.isStale()) {
+            stats = CombatStats.of(units.get(id));
+            combatStats[id] = stats;
+        }
+        return stats;
+    }
+
+    /**
+     * Removes hp from the target, same rules as BattleSystem (boss phases, damage per side)
+     * @param attacker the unit dealing damage
+     * @param id the id of the target
+     * @param dmg the damage, not negative
+     */
+    private void dealDamage(BattleUnit attacker, int id, int dmg) {
+        BattleUnit target = units.get(id);
+        int before = target.getCurrentHP();
+        target.setCurrentHP(Math.max(0, before - dmg));
+        int dealt = before - target.getCurrentHP();
+        if (attacker instanceof Character) {
+            playerDamage += dealt;
+        } else {
+            enemyDamage += dealt;
+        }
+        if (target instanceof BossEnemy) {
+            BossEnemy boss = (BossEnemy) target;
+            if (boss.shouldTransitionPhase()) {
+                boss.advancePhase();
+            }
+        }
+        if (!target.isAlive()) {
+            kill(id);
+        }
+    }
+
+    private List<BattleUnit> aliveUnits(BitSet alive, int count) {
+        List<BattleUnit> list = new ArrayList<>(count);
+        for (int id = alive.nextSetBit(0); id >= 0; id = alive.nextSetBit(id + 1)) {
+            list.add(units.get(id));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,283 @@
+package systems.gacha;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Represents a timed gacha banner with featured (rate up) rewards.
+ * A banner is compiled once when it is activated: the featured and standard pools of every rarity are built
+ * into {@link RewardPool}s, so pulling on the banner only samples pools and never looks anything up by name.
+ * <p>
+ * 5 star pulls follow the 50/50 rule: a 5 star is featured half of the time, after losing the 50/50
+ * the next 5 star is guaranteed to be featured. 4 star pulls are featured half of the time without a guarantee.
+ * Banners of the same type share pity.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see BannerRegistry
+ * @see RewardPool
+ */
+public class Banner {
+    /**
+     * Standard (permanent) banner type, no featured rewards
+     */
+    public static final int TYPE_STANDARD = 0;
+    /**
+     * Character event banner type
+     */
+    public static final int TYPE_CHARACTER = 1;
+    /**
+     * Light cone event banner type
+     */
+    public static final int TYPE_LIGHT_CONE = 2;
+    /**
+     * Number of banner types
+     */
+    public static final int TYPE_COUNT = 3;
+    /**
+     * Smallest banner id, ids below are {@link GachaSystem#ITEM_BANNER_ID} and {@link GachaSystem#CHARACTER_BANNER_ID}
+     * in the analytics and the pull history
+     */
+    public static final int MIN_ID = 2;
+    /**
+     * Largest banner id, pull records keep the banner id in 16 bits
+     */
+    public static final int MAX_ID = 0xFFFF;
+
+    private final int id;
+    private final String name;
+    private final int type;
+    private final long startTime;
+    private final long endTime;
+    private final List<RewardEntry> featuredFiveStars;
+    private final List<RewardEntry> featuredFourStars;
+    private volatile Compiled compiled;
+    private boolean released;
+
+    /**
+     * Instantiates a new Banner
+     *
+     * @param id                the id of the banner (MIN_ID-MAX_ID)
+     * @param name              the name of the banner
+     * @param type              the type of the banner (TYPE_STANDARD, TYPE_CHARACTER, TYPE_LIGHT_CONE)
+     * @param startTime         the start time (epoch millis)
+     * @param endTime           the end time (epoch millis), exclusive
+     * @param featuredFiveStars the featured 5 star rewards, weights are used inside the featured pool
+     * @param featuredFourStars the featured 4 star rewards
+     */
+    public Banner(int id, String name, int type, long startTime, long endTime,
+                  List<RewardEntry> featuredFiveStars, List<RewardEntry> featuredFourStars) {
+        if (id < MIN_ID || id > MAX_ID) {
+            throw new IllegalArgumentException("Banner id must be between " + MIN_ID + " and " + MAX_ID + ": " + id);
+        }
+        if (type < 0 || type >= TYPE_COUNT) {
+            throw new IllegalArgumentException("Unknown banner type: " + type);
+        }
+        if (endTime <= startTime) {
+            throw new IllegalArgumentException("Banner " + name + " ends before it starts");
+        }
+        this.id = id;
+        this.name = name;
+        this.type = type;
+        this.startTime = startTime;
+        this.endTime = endTime;
+        this.featuredFiveStars = featuredFiveStars == null
+                ? Collections.<RewardEntry>emptyList() : new ArrayList<>(featuredFiveStars);
+        this.featuredFourStars = featuredFourStars == null
+                ? Collections.<RewardEntry>emptyList() : new ArrayList<>(featuredFourStars);
+    }
+
+    /**
+     * Compile the pools of the banner, does nothing if it is already compiled
+     *
+     * @throws IllegalStateException if the banner has been released
+     */
+    public synchronized void compile() {
+        if (compiled != null) {
+            return;
+        }
+        if (released) {
+            throw new IllegalStateException("Banner " + name + " has been removed");
+        }
+        boolean characters = type != TYPE_LIGHT_CONE;
+        Compiled pools = new Compiled();
+        pools.featuredFiveStar = featuredPool(pools, featuredFiveStars);
+        pools.featuredFourStar = featuredPool(pools, featuredFourStars);
+        pools.standardFiveStar = standardPool(pools, 5, characters, featuredFiveStars);
+        pools.standardFourStar = standardPool(pools, 4, characters, featuredFourStars);
+        pools.threeStar = RewardCatalog.THREE_STAR_ITEMS;
+        compiled = pools;
+    }
+
+    /**
+     * Release the compiled pools of the banner and unregister its rewards from the {@link RewardCatalog},
+     * called when the banner is removed from its registry. The banner cannot be compiled again
+     */
+    public synchronized void release() {
+        released = true;
+        Compiled pools = compiled;
+        if (pools == null) {
+            return;
+        }
+        compiled = null;
+        for (RewardPool pool : pools.registered) {
+            RewardCatalog.unregister(pool);
+        }
+    }
+
+    /**
+     * Sample a reward after the rarity is drawn, applies the 50/50 rule and updates the featured guarantee.
+     * The caller must own the pity (e.g. hold the player's session lock).
+     *
+     * @param rarity the rarity drawn (3-5)
+     * @param pity   the pity of the banner type
+     * @param coin   a random number for the 50/50 (0-1)
+     * @param roll   a random number for the pool sample (0-1)
+     * @return the reward pulled
+     */
+    public RewardEntry sample(int rarity, PitySystem pity, double coin, double roll) {
+        Compiled pools = compiled;
+        if (pools == null) {
+            throw new IllegalStateException("Banner " + name + " is not activated");
+        }
+        if (rarity == 5) {
+            if (pools.featuredFiveStar == null) {
+                return pools.standardFiveStar.sample(roll);
+            }
+            if (pity.hasFeaturedGuarantee() || coin < 0.5) {
+                pity.setFeaturedGuarantee(false);
+                return pools.featuredFiveStar.sample(roll);
+            }
+            // lost the 50/50, next 5 star is guaranteed featured
+            pity.setFeaturedGuarantee(true);
+            return pools.standardFiveStar.sample(roll);
+        }
+        if (rarity == 4) {
+            if (pools.featuredFourStar != null && coin < 0.5) {
+                return pools.featuredFourStar.sample(roll);
+            }
+            return pools.standardFourStar.sample(roll);
+        }
+        return pools.threeStar.sample(roll);
+    }
+
+    /**
+     * Checks if the banner is open at a time.
+     *
+     * @param time the time (epoch millis)
+     * @return true if the banner is open
+     */
+    public boolean isOpen(long time) {
+        return time >= startTime && time < endTime;
+    }
+
+    /**
+     * Checks if the banner has been compiled.
+     *
+     * @return true if compiled
+     */
+    public boolean isCompiled() { return compiled != null; }
+
+    /**
+     * Gets id.
+     *
+     * @return the id
+     */
+    public int getId() { return id; }
+
+    /**
+     * Gets name.
+     *
+     * @return the name
+     */
+    public String getName() { return name; }
+
+    /**
+     * Gets type.
+     *
+     * @return the type
+     */
+    public int getType() { return type; }
+
+    /**
+     * Gets start time.
+     *
+     * @return the start time (epoch millis)
+     */
+    public long getStartTime() { return startTime; }
+
+    /**
+     * Gets end time.
+     *
+     * @return the end time (epoch millis)
+     */
+    public long getEndTime() { return endTime; }
+
+    /**
+     * Gets featured 5 star rewards.
+     *
+     * @return the featured 5 star rewards
+     */
+    public List<RewardEntry> getFeaturedFiveStars() { return Collections.unmodifiableList(featuredFiveStars); }
+
+    /**
+     * Gets featured 4 star rewards.
+     *
+     * @return the featured 4 star rewards
+     */
+    public List<RewardEntry> getFeaturedFourStars() { return Collections.unmodifiableList(featuredFourStars); }
+
+    private RewardPool featuredPool(Compiled pools, List<RewardEntry> featured) {
+        if (featured.isEmpty()) {
+            return null;
+        }
+        RewardPool pool = RewardCatalog.register(new RewardPool(name + " Featured", featured));
+        pools.registered.add(pool);
+        return pool;
+    }
+
+    /**
+     * Standard pool of a rarity without the featured rewards, characters or light cones depending on banner type
+     */
+    private RewardPool standardPool(Compiled pools, int rarity, boolean characters, List<RewardEntry> featured) {
+        RewardPool source = characters ? RewardCatalog.characterPoolFor(rarity) : RewardCatalog.itemPoolFor(rarity);
+        List<RewardEntry> entries = new ArrayList<>();
+        for (int i = 0; i < source.size(); i++) {
+            RewardEntry entry = source.getEntry(i);
+            if (!characters && !RewardEntry.TYPE_LIGHT_CONE.equals(entry.getType())) {
+                continue;
+            }
+            if (!containsName(featured, entry.getName())) {
+                entries.add(entry);
+            }
+        }
+        // every standard reward is featured, fall back to the featured rewards
+        if (entries.isEmpty()) {
+            return featuredPool(pools, featured);
+        }
+        return new RewardPool(name + " " + rarity + " Star", entries);
+    }
+
+    private static boolean containsName(List<RewardEntry> entries, String name) {
+        for (RewardEntry entry : entries) {
+            if (entry.getName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Pools of an activated banner
+     */
+    private static class Compiled {
+        private RewardPool featuredFiveStar;
+        private RewardPool featuredFourStar;
+        private RewardPool standardFiveStar;
+        private RewardPool standardFourStar;
+        private RewardPool threeStar;
+        private final List<RewardPool> registered = new ArrayList<>();  // pools registered in the catalog
+    }
+}
@@ -0,0 +1,119 @@
+package systems.gacha;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Represents the registry and scheduler of gacha banners.
+ * Banners are stored in an array indexed by banner id, banners are compiled when they are activated
+ * (manually or by {@link #refresh(long)} when their start time is reached), a banner that opened
+ * without a refresh is compiled by its first pull.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see Banner
+ */
+public class BannerRegistry {
+    private volatile Banner[] banners;
+
+    /**
+     * Instantiates a new empty Banner registry
+     */
+    public BannerRegistry() {
+        this.banners = new Banner[16];
+    }
+
+    /**
+     * Register a banner, banners open at the current time are activated right away
+     *
+     * @param banner the banner to register
+     */
+    public synchronized void register(Banner banner) {
+        Banner[] current = banners;
+        if (banner.getId() < current.length && current[banner.getId()] != null) {
+            throw new IllegalArgumentException("Banner id " + banner.getId() + " is already registered");
+        }
+        Banner[] updated = current;
+        if (banner.getId() >= current.length) {
+            updated = new Banner[Math.max(current.length * 2, banner.getId() + 1)];
+            System.arraycopy(current, 0, updated, 0, current.length);
+        }
+        updated[banner.getId()] = banner;
+        if (banner.isOpen(System.currentTimeMillis())) {
+            banner.compile();
+        }
+        banners = updated;
+    }
+
+    /**
+     * Unregister a banner (e.g. a timed banner that is over), its rewards are unregistered from the
+     * {@link RewardCatalog} so they are no longer kept after the banner is gone
+     *
+     * @param bannerId the id of the banner
+     * @return the removed banner
+     */
+    public synchronized Banner unregister(int bannerId) {
+        Banner banner = getBanner(bannerId);
+        Banner[] updated = banners.clone();
+        updated[bannerId] = null;
+        banners = updated;
+        banner.release();
+        return banner;
+    }
+
+    /**
+     * Activate (compile) a banner
+     *
+     * @param bannerId the id of the banner
+     */
+    public void activate(int bannerId) {
+        getBanner(bannerId).compile();
+    }
+
+    /**
+     * Activate all banners that are open at a time, should be called when time moves on (e.g. by a timer)
+     *
+     * @param time the time (epoch millis)
+     * @return the number of banners open at that time
+     */
+    public int refresh(long time) {
+        int open = 0;
+        for (Banner banner : banners) {
+            if (banner != null && banner.isOpen(time)) {
+                banner.compile();
+                open++;
+            }
+        }
+        return open;
+    }
+
+    /**
+     * Gets a banner by id.
+     *
+     * @param bannerId the id of the banner
+     * @return the banner
+     */
+    public Banner getBanner(int bannerId) {
+        Banner[] current = banners;
+        if (bannerId < 0 || bannerId >= current.length || current[bannerId] == null) {
+            throw new IllegalArgumentException("Unknown banner id: " + bannerId);
+        }
+        return current[bannerId];
+    }
+
+    /**
+     * Gets all banners open at a time.
+     *
+     * @param time the time (epoch millis)
+     * @return the open banners
+     */
+    public List<Banner> getOpenBanners(long time) {
+        List<Banner> open = new ArrayList<>();
+        for (Banner banner : banners) {
+            if (banner != null && banner.isOpen(time)) {
+                open.add(banner);
+            }
+        }
+        return open;
+    }
+}
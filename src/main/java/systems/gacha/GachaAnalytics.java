@@ -0,0 +1,198 @@
+package systems.gacha;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Represents the live analytics of gacha pulls: per banner pull counts, rarity rates and
+ * pulls-to-5-star percentiles.
+ * <p>
+ * Pulls-to-5-star can never go over the 5 star hard pity, so every banner keeps one fixed bucket per pity count,
+ * the histogram has a fixed size and exact percentiles. All counters are atomic and updated without locks,
+ * so any number of threads can record pulls while another thread takes a snapshot.
+ * A snapshot reads the counters one by one without pausing pulls, so counters of pulls made during the snapshot
+ * may or may not be included.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see GachaService
+ * @see PullSink
+ */
+public class GachaAnalytics {
+    private static final int BUCKETS = PityTable.FIVE_STAR_HARD_PITY + 1;
+
+    private final AtomicReferenceArray<BannerStats> banners;
+
+    /**
+     * Instantiates a new Gacha analytics
+     */
+    public GachaAnalytics() {
+        this.banners = new AtomicReferenceArray<>(0x10000);
+    }
+
+    /**
+     * Record a pull
+     *
+     * @param bannerId     the banner id (0-65535), 0 and 1 are the item and character pulls
+     * @param rarity       the rarity the player got (3-5), after any pool minimum is applied
+     * @param fiveStarPity the 5 star pity count of the pull (pulls it took to get a 5 star)
+     */
+    public void record(int bannerId, int rarity, int fiveStarPity) {
+        BannerStats stats = statsOf(bannerId);
+        stats.pulls.increment();
+        if (rarity == 5) {
+            stats.fiveStars.increment();
+            int bucket = Math.max(1, Math.min(fiveStarPity, BUCKETS - 1));
+            stats.pullsToFiveStar.incrementAndGet(bucket);
+        } else if (rarity == 4) {
+            stats.fourStars.increment();
+        }
+    }
+
+    /**
+     * Gets a pull sink recording batch pulls for a banner
+     *
+     * @param bannerId the banner id (0-65535), 0 and 1 are the item and character pulls
+     * @return the sink
+     */
+    public PullSink sinkFor(int bannerId) {
+        return (pullNumber, rarity, fiveStarPity, fourStarPity) -> record(bannerId, rarity, fiveStarPity);
+    }
+
+    /**
+     * Take a snapshot of a banner, pulls are not paused
+     *
+     * @param bannerId the banner id (0-65535), 0 and 1 are the item and character pulls
+     * @return the snapshot
+     */
+    public Snapshot snapshot(int bannerId) {
+        BannerStats stats = banners.get(bannerId);
+        long[] histogram = new long[BUCKETS];
+        if (stats == null) {
+            return new Snapshot(bannerId, 0, 0, 0, histogram);
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = stats.pullsToFiveStar.get(i);
+        }
+        return new Snapshot(bannerId, stats.pulls.sum(), stats.fourStars.sum(), stats.fiveStars.sum(), histogram);
+    }
+
+    private BannerStats statsOf(int bannerId) {
+        BannerStats stats = banners.get(bannerId);
+        if (stats == null) {
+            banners.compareAndSet(bannerId, null, new BannerStats());
+            stats = banners.get(bannerId);
+        }
+        return stats;
+    }
+
+    /**
+     * Counters of one banner
+     */
+    private static class BannerStats {
+        private final LongAdder pulls = new LongAdder();
+        private final LongAdder fourStars = new LongAdder();
+        private final LongAdder fiveStars = new LongAdder();
+        private final AtomicLongArray pullsToFiveStar = new AtomicLongArray(BUCKETS);
+    }
+
+    /**
+     * A point in time copy of the analytics of one banner
+     */
+    public static class Snapshot {
+        private final int bannerId;
+        private final long pulls;
+        private final long fourStars;
+        private final long fiveStars;
+        private final long[] pullsToFiveStar;
+
+        private Snapshot(int bannerId, long pulls, long fourStars, long fiveStars, long[] pullsToFiveStar) {
+            this.bannerId = bannerId;
+            this.pulls = pulls;
+            this.fourStars = fourStars;
+            this.fiveStars = fiveStars;
+            this.pullsToFiveStar = pullsToFiveStar;
+        }
+
+        /**
+         * Gets banner id.
+         *
+         * @return the banner id
+         */
+        public int getBannerId() { return bannerId; }
+
+        /**
+         * Gets total pulls.
+         *
+         * @return the pulls
+         */
+        public long getPulls() { return pulls; }
+
+        /**
+         * Gets 4 star count.
+         *
+         * @return the 4 star count
+         */
+        public long getFourStars() { return fourStars; }
+
+        /**
+         * Gets 5 star count.
+         *
+         * @return the 5 star count
+         */
+        public long getFiveStars() { return fiveStars; }
+
+        /**
+         * Gets 4 star rate.
+         *
+         * @return the 4 star rate (0-1)
+         */
+        public double getFourStarRate() { return pulls == 0 ? 0 : (double) fourStars / pulls; }
+
+        /**
+         * Gets 5 star rate.
+         *
+         * @return the 5 star rate (0-1)
+         */
+        public double getFiveStarRate() { return pulls == 0 ? 0 : (double) fiveStars / pulls; }
+
+        /**
+         * Gets a percentile of pulls needed for a 5 star, e.g. 0.5 for p50, 0.99 for p99.
+         *
+         * @param percentile the percentile (0-1)
+         * @return the pulls needed, 0 if there are no 5 stars yet
+         */
+        public int getPullsToFiveStarPercentile(double percentile) {
+            long total = 0;
+            for (long count : pullsToFiveStar) {
+                total += count;
+            }
+            if (total == 0) {
+                return 0;
+            }
+            long target = Math.max(1, (long) Math.ceil(percentile * total));
+            long cumulative = 0;
+            for (int pity = 1; pity < pullsToFiveStar.length; pity++) {
+                cumulative += pullsToFiveStar[pity];
+                if (cumulative >= target) {
+                    return pity;
+                }
+            }
+            return pullsToFiveStar.length - 1;
+        }
+
+        /**
+         * Print the snapshot.
+         */
+        public void printSnapshot() {
+            System.out.println("=== Banner " + bannerId + " Analytics ===");
+            System.out.println("Total Pulls: " + pulls);
+            System.out.println("5 Star Rate: " + getFiveStarRate() * 100 + "%");
+            System.out.println("4 Star Rate: " + getFourStarRate() * 100 + "%");
+            System.out.println("Pulls To 5 Star p50/p90/p99: " + getPullsToFiveStarPercentile(0.5) + "/"
+                    + getPullsToFiveStarPercentile(0.9) + "/" + getPullsToFiveStarPercentile(0.99));
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package systems.gacha;
+
+import util.random.RandomSource;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Represents the gacha service for many players in one JVM.
+ * Every player has their own session with item and character pity, sessions are stored in a concurrent map
+ * keyed by player id and each session is locked on its own, so pulls of different players never wait on each other.
+ * Random numbers come from the random generator of the calling thread ({@link RandomSource#threadLocal()})
+ * unless a source is given to the constructor,
+ * and pools and pity thresholds are the shared immutable {@link RewardCatalog} and {@link PityTable}, so nothing else is shared between threads.
+ * <p>
+ * Unlike {@link GachaSystem} this service prints nothing and returns {@link RewardEntry} templates,
+ * callers create the item or character when they need the object.
+ * Banner pulls keep one pity per banner type, shared by all banners of that type.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see GachaSystem
+ * @see PitySystem
+ */
+public class GachaService {
+    private final ConcurrentHashMap<String, Session> sessions;
+    private final PityTable pityTable;
+    private final BannerRegistry bannerRegistry;
+    private final RandomSource random;
+    private volatile GachaAnalytics analytics;
+
+    /**
+     * Instantiates a new Gacha service with the standard pity table and no banners
+     */
+    public GachaService() {
+        this(new BannerRegistry());
+    }
+
+    /**
+     * Instantiates a new Gacha service with the standard pity table and a banner registry
+     *
+     * @param bannerRegistry the banner registry
+     */
+    public GachaService(BannerRegistry bannerRegistry) {
+        this(bannerRegistry, null);
+    }
+
+    /**
+     * Instantiates a new Gacha service with the standard pity table, a banner registry and a random source.
+     * A seeded source makes pulls reproducible (e.g. in tests) but is not thread safe,
+     * it should only be used by one thread at a time
+     *
+     * @param bannerRegistry the banner registry
+     * @param random         the random source, null for the thread local source
+     */
+    public GachaService(BannerRegistry bannerRegistry, RandomSource random) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.pityTable = PityTable.STANDARD;
+        this.bannerRegistry = bannerRegistry;
+        this.random = random == null ? RandomSource.threadLocal() : random;
+    }
+
+    /**
+     * Pull a single item for a player
+     *
+     * @param playerId the id of the player
+     * @return the reward pulled
+     */
+    public RewardEntry pullItem(String playerId) {
+        int rarity = withSession(playerId, session -> roll(session.itemPity, GachaSystem.ITEM_BANNER_ID, 3));
+        return RewardCatalog.itemPoolFor(rarity).sample(random.nextDouble());
+    }
+
+    /**
+     * Pull a single character for a player
+     *
+     * @param playerId the id of the player
+     * @return the reward pulled
+     */
+    public RewardEntry pullCharacter(String playerId) {
+        // 4-5 only since there isn't 1-3 star characters
+        int rarity = withSession(playerId, session -> roll(session.characterPity, GachaSystem.CHARACTER_BANNER_ID, 4));
+        return RewardCatalog.characterPoolFor(rarity).sample(random.nextDouble());
+    }
+
+    /**
+     * Pull once on a banner for a player, pity is shared with other banners of the same type
+     *
+     * @param playerId the id of the player
+     * @param bannerId the id of the banner
+     * @return the reward pulled
+     */
+    public RewardEntry pullBanner(String playerId, int bannerId) {
+        Banner banner = bannerRegistry.getBanner(bannerId);
+        if (!banner.isOpen(System.currentTimeMillis())) {
+            throw new IllegalStateException("Banner " + banner.getName() + " is not open");
+        }
+        if (!banner.isCompiled()) {
+            // opened after it was registered and no refresh ran since, compile is done once
+            banner.compile();
+        }
+        return withSession(playerId, session -> {
+            PitySystem pity = session.bannerPity[banner.getType()];
+            int rarity = roll(pity, banner.getId(), 3);
+            return banner.sample(rarity, pity, random.nextDouble(), random.nextDouble());
+        });
+    }
+
+    /**
+     * Checks if the next 5 star of a player on a banner type is guaranteed to be featured.
+     *
+     * @param playerId   the id of the player
+     * @param bannerType the banner type
+     * @return true if the player lost the last 50/50 of that banner type
+     */
+    public boolean hasFeaturedGuarantee(String playerId, int bannerType) {
+        Session session = sessions.get(playerId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            return session.bannerPity[bannerType].hasFeaturedGuarantee();
+        }
+    }
+
+    /**
+     * Attach analytics to the pull path, every pull after this is recorded.
+     * Item and character pulls are recorded under {@link GachaSystem#ITEM_BANNER_ID} and
+     * {@link GachaSystem#CHARACTER_BANNER_ID}, banner pulls under the banner id.
+     * The rarity recorded is the rarity the player gets, character pulls are never recorded below 4 stars.
+     *
+     * @param analytics the analytics, null to detach
+     */
+    public void setAnalytics(GachaAnalytics analytics) { this.analytics = analytics; }
+
+    /**
+     * Gets the attached analytics.
+     *
+     * @return the analytics, null if none is attached
+     */
+    public GachaAnalytics getAnalytics() { return analytics; }
+
+    /**
+     * Gets the banner registry.
+     *
+     * @return the banner registry
+     */
+    public BannerRegistry getBannerRegistry() { return bannerRegistry; }
+
+    /**
+     * Pull items for a player in headless batch mode, the player's session is locked for the whole batch
+     *
+     * @param playerId the id of the player
+     * @param n        the number of pulls
+     * @param sink     the sink receiving every pull result
+     * @return the number of 5 star pulls in this batch
+     */
+    public int pullBatch(String playerId, int n, PullSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Pull sink cannot be null");
+        }
+        return withSession(playerId, session -> {
+            int fiveStarCount = 0;
+            PitySystem pity = session.itemPity;
+            for (int i = 1; i <= n; i++) {
+                pity.incrementPity();
+                int fiveStarPity = pity.getFiveStarPity();
+                int fourStarPity = pity.getFourStarPity();
+                int rarity = draw(pity, 3);
+                record(GachaSystem.ITEM_BANNER_ID, rarity, fiveStarPity);
+                sink.accept(i, rarity, fiveStarPity, fourStarPity);
+                if (rarity == 5) {
+                    fiveStarCount++;
+                }
+            }
+            return fiveStarCount;
+        });
+    }
+
+    /**
+     * Gets the item 5 star pity of a player.
+     *
+     * @param playerId the id of the player
+     * @return the 5 star pity, 0 for unknown players
+     */
+    public int getFiveStarPity(String playerId) {
+        Session session = sessions.get(playerId);
+        if (session == null) {
+            return 0;
+        }
+        synchronized (session) {
+            return session.itemPity.getFiveStarPity();
+        }
+    }
+
+    /**
+     * Gets the item 4 star pity of a player.
+     *
+     * @param playerId the id of the player
+     * @return the 4 star pity, 0 for unknown players
+     */
+    public int getFourStarPity(String playerId) {
+        Session session = sessions.get(playerId);
+        if (session == null) {
+            return 0;
+        }
+        synchronized (session) {
+            return session.itemPity.getFourStarPity();
+        }
+    }
+
+    /**
+     * Remove a player's session (e.g. when the player logs out).
+     * The session is removed under its lock, a pull already running finishes first,
+     * a pull waiting for the lock sees the session closed and starts a new one
+     *
+     * @param playerId the id of the player
+     * @return true if the player had a session
+     */
+    public boolean removePlayer(String playerId) {
+        Session session = playerId == null ? null : sessions.get(playerId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            session.closed = true;
+            return sessions.remove(playerId, session);
+        }
+    }
+
+    /**
+     * Gets the number of players with a session.
+     *
+     * @return the player count
+     */
+    public int getPlayerCount() { return sessions.size(); }
+
+    private Session sessionOf(String playerId) {
+        if (playerId == null) {
+            throw new IllegalArgumentException("Player id cannot be null");
+        }
+        return sessions.computeIfAbsent(playerId, id -> new Session());
+    }
+
+    /**
+     * Run an action on the player's session while holding its lock, a session removed before the lock
+     * was taken is not used (its pity would be lost), the action runs on the new session instead
+     */
+    private <R> R withSession(String playerId, Function<Session, R> action) {
+        while (true) {
+            Session session = sessionOf(playerId);
+            synchronized (session) {
+                if (!session.closed) {
+                    return action.apply(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * Increment pity and draw a rarity, caller must hold the session lock
+     */
+    private int roll(PitySystem pity, int bannerId, int minRarity) {
+        pity.incrementPity();
+        int fiveStarPity = pity.getFiveStarPity();
+        int rarity = draw(pity, minRarity);
+        // record after the rarity is raised to the pool minimum, stats match what the player got
+        record(bannerId, rarity, fiveStarPity);
+        return rarity;
+    }
+
+    private void record(int bannerId, int rarity, int fiveStarPity) {
+        GachaAnalytics current = analytics;
+        if (current != null) {
+            current.record(bannerId, rarity, fiveStarPity);
+        }
+    }
+
+    /**
+     * Draw a rarity for the current pity, raise it to the minimum rarity of the pool,
+     * then reset the pity of the rarity the player gets, caller must hold the session lock
+     */
+    private int draw(PitySystem pity, int minRarity) {
+        pity.checkGuarantee();
+        int rarity = pityTable.draw(pity.getFiveStarPity(), pity.getFourStarPity(), random.nextDouble());
+        rarity = Math.max(rarity, minRarity);
+        if (rarity == 5 || rarity == 4) {
+            pity.resetPity(rarity);
+        }
+        return rarity;
+    }
+
+    /**
+     * Pity state of one player, guarded by the session itself
+     */
+    private static class Session {
+        private final PitySystem itemPity = new PitySystem();
+        private final PitySystem characterPity = new PitySystem();
+        private final PitySystem[] bannerPity = new PitySystem[Banner.TYPE_COUNT];
+        private boolean closed;     // removed from the map, set under the session lock
+
+        private Session() {
+            for (int i = 0; i < bannerPity.length; i++) {
+                bannerPity[i] = new PitySystem();
+            }
+        }
+    }
+}
@@ -5,19 +5,25 @@ import entities.equipment.*;
 import entities.characters.*;
 import entities.characters.Character;
 import util.fileio.FileHandler;
+import util.random.RandomSource;
 
 
+import java.io.IOException;
 import java.util.*;
 
 /**
  * Represents the gacha system in game.
- * Uses 2d-array for probability table, have pity systems for 4 and 5 star characters, stores pull history in String list.
+ * Uses 2d-array for probability table, have pity systems for 4 and 5 star characters, stores pull history in {@link PullHistoryLog}.
+ * Rarity draws use the precomputed {@link PityTable}, the probability table is kept up to date for display.
+ * Rewards are sampled from the weighted pools in {@link RewardCatalog}.
  * Uses {@link PitySystem}
  *
  * @author Shaoyang Chen
  * @version 1.1.0
  *
  * @see PitySystem
+ * @see PityTable
+ * @see RewardPool
  * @see Item
  * @see Character
  * @see Equipment
@@ -27,17 +33,36 @@ public class GachaSystem {
     private int pityCounter5Star;
     private int pityCounter4Star;
     private boolean guaranteed5Star;
-    private List<String> pullHistory;
-    private List<String> characterPullHistory;
-    private Random random;
+    private PullHistoryLog pullHistory;
+    private PullHistoryLog characterPullHistory;
+    private RandomSource random;
     private PitySystem pitySystem;
     private PitySystem characterPitySystem;
+    private PullJournal journal;
+
+    /**
+     * Banner id of item pulls in the pull history
+     */
+    public static final int ITEM_BANNER_ID = 0;
+    /**
+     * Banner id of character pulls in the pull history
+     */
+    public static final int CHARACTER_BANNER_ID = 1;
 
     /**
      * Instantiates a new Gacha system (gacha system shouldn't have any args)
      * In default, 3 star item probability is 94.3%, 4 star item is 5.1%, 5 star item is 0.6%
      */
     public GachaSystem() {
+        this(RandomSource.threadLocal());
+    }
+
+    /**
+     * Instantiates a new Gacha system with a provided random source, a seeded source makes every pull reproducible
+     *
+     * @param random the random source used for every pull
+     */
+    public GachaSystem(RandomSource random) {
         // probability table: rows: (3 star, 4 star, 5 star), 3 cols (base probability, UP probability, total probability
         probabilityTable = new double[3][3];
         probabilityTable[0][0] = 0.943;
@@ -49,13 +74,13 @@ public class GachaSystem {
         // I made the dumbest mistake ever, only initialized "random" here ...  -->
         // previously:
         // Random random = new Random();
-        random = new Random();
+        this.random = random;
 
         pityCounter5Star = 0;
         pityCounter4Star = 0;
         guaranteed5Star = false;
-        pullHistory = new ArrayList<>();
-        characterPullHistory = new ArrayList<>();
+        pullHistory = new PullHistoryLog();
+        characterPullHistory = new PullHistoryLog();
         pitySystem = new PitySystem();
         characterPitySystem = new PitySystem();
     }
@@ -68,19 +93,102 @@ public class GachaSystem {
     public Item pullSingle() {
         System.out.println("=== Single Pull (Items) ===");
         // update pity first
-        pityCounter5Star++;
-        pityCounter4Star++;
-        pitySystem.incrementPity();
+        incrementItemPity();
         checkPity();
         updateProbabilities();
         int rarity = determineRarity();
         //get item
-        Item item = getRandomItemByRarity(rarity);
+        RewardEntry reward = RewardCatalog.itemPoolFor(rarity).sample(random.nextDouble());
+        Item item = reward.createItem();
         // pull history
-        int temp = pullHistory.size() + 1;
-        String record = "Single Pull Item,Pull: " + temp + ",5 Star Pity Count: " + pityCounter5Star +
-        ",4 Star Pity Count: " + pityCounter4Star + ",Got Item: " + item.getName();
-        pullHistory.add(record);
+        pullHistory.append(ITEM_BANNER_ID, rarity, reward.getId(), pityCounter5Star, pityCounter4Star);
+        journalPull(ITEM_BANNER_ID, rarity, reward.getId(), pityCounter5Star, pityCounter4Star);
+        resetItemPity(rarity);
+        System.out.println("Pulled Item: " + item.getName() + " (" + comeOnJustStarrrrrrrrs(rarity) + ")");
+        return item;
+    }
+
+    /**
+     * Pull items in headless batch mode, follows the same pity and soft pity rules as {@link #pullSingle()}.
+     * Nothing is printed, no item objects are created and no pull history is recorded,
+     * each result is streamed into the sink instead. Used for large simulations like rate audits.
+     * Rarity is drawn straight from {@link PityTable}, so the probability table is not updated.
+     * If a journal is attached, batch pulls are journaled without a reward so pity can still be recovered.
+     *
+     * @param n    the number of pulls to make
+     * @param sink the sink receiving every pull result
+     * @return the number of 5 star pulls in this batch
+     */
+    public int pullBatch(int n, PullSink sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("Pull sink cannot be null");
+        }
+        int fiveStarCount = 0;
+        for (int i = 1; i <= n; i++) {
+            incrementItemPity();
+            if (pityCounter5Star >= 90) {
+                guaranteed5Star = true;
+            }
+            pitySystem.checkGuarantee();
+            int rarity = determineRarity();
+            sink.accept(i, rarity, pityCounter5Star, pityCounter4Star);
+            journalPull(ITEM_BANNER_ID, rarity, PullJournal.NO_REWARD, pityCounter5Star, pityCounter4Star);
+            resetItemPity(rarity);
+            if (rarity == 5) {
+                fiveStarCount++;
+            }
+        }
+        return fiveStarCount;
+    }
+
+    /**
+     * Attach a pull journal, pull history and pity counters are recovered from the journal
+     * and every pull after this is appended to it.
+     *
+     * @param journal the journal to attach
+     */
+    public void attachJournal(PullJournal journal) {
+        this.journal = journal;
+        pullHistory.clear();
+        characterPullHistory.clear();
+        journal.readInto(ITEM_BANNER_ID, pullHistory);
+        journal.readInto(CHARACTER_BANNER_ID, characterPullHistory);
+        if (journal.recoverPity(ITEM_BANNER_ID, pitySystem)) {
+            pityCounter5Star = pitySystem.getFiveStarPity();
+            pityCounter4Star = pitySystem.getFourStarPity();
+        }
+        journal.recoverPity(CHARACTER_BANNER_ID, characterPitySystem);
+        System.out.println("Recovered " + journal.getRecordCount() + " pulls from journal");
+    }
+
+    /**
+     * Append a pull to the attached journal, if there is one
+     */
+    private void journalPull(int bannerId, int rarity, int rewardId, int fiveStarPity, int fourStarPity) {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.append(bannerId, rarity, rewardId, fiveStarPity, fourStarPity);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Increase all item pity counters before a pull
+     */
+    private void incrementItemPity() {
+        pityCounter5Star++;
+        pityCounter4Star++;
+        pitySystem.incrementPity();
+    }
+
+    /**
+     * Reset item pity counters after pulling a 4 or 5 star item
+     * @param rarity rarity pulled
+     */
+    private void resetItemPity(int rarity) {
         if (rarity == 5) {
             pityCounter5Star = 0;
             pitySystem.resetPity(5);
@@ -90,8 +198,6 @@ public class GachaSystem {
             pityCounter4Star = 0;
             pitySystem.resetPity(4);
         }
-        System.out.println("Pulled Item: " + item.getName() + " (" + comeOnJustStarrrrrrrrs(rarity) + ")");
-        return item;
     }
 
     /**
@@ -146,10 +252,12 @@ public class GachaSystem {
             System.out.println("Character Pull Pity Used!");
         }
         int characterRarity = determineCharacterRarity();
-        Character character = getRandomCharacterByRarity(characterRarity);
-        int temp = characterPullHistory.size() + 1;
-        String record = "Character Single Pull,Pull " + temp + ",Gained:" + character.getName() + ",Rarity: " + characterRarity;
-        characterPullHistory.add(record);
+        RewardEntry reward = RewardCatalog.characterPoolFor(characterRarity).sample(random.nextDouble());
+        Character character = reward.createCharacter();
+        characterPullHistory.append(CHARACTER_BANNER_ID, characterRarity, reward.getId(),
+                characterPitySystem.getFiveStarPity(), characterPitySystem.getFourStarPity());
+        journalPull(CHARACTER_BANNER_ID, characterRarity, reward.getId(),
+                characterPitySystem.getFiveStarPity(), characterPitySystem.getFourStarPity());
         if (characterRarity == 5) {
             characterPitySystem.resetPity(5);
         } else if (characterRarity == 4) {
@@ -188,45 +296,10 @@ public class GachaSystem {
      * @return rarity of the character
      */
     private int determineCharacterRarity() {
+        int rarity = PityTable.STANDARD.draw(characterPitySystem.getFiveStarPity(),
+                characterPitySystem.getFourStarPity(), random.nextDouble());
         // 4-5 only since there isn't 1-3 star characters
-        if (characterPitySystem.getFiveStarPity() >= 90) {
-            return 5;
-        }
-        if (characterPitySystem.getFourStarPity() >= 10) {
-            return 4;
-        }
-        double random = Math.random();
-        double cumulative = 0.0;
-        if (random < probabilityTable[2][2]) {
-            return 5;
-        }
-        cumulative += probabilityTable[2][2];
-
-        // 4 star character
-        if (random < cumulative + probabilityTable[1][2]) {
-            return 4;
-        }
-
-        // 4-5 only since there isn't 1-3 star characters
-        return 4;
-    }
-
-    /**
-     * Get random character based on a provided rarity (the pool of pulling)
-     * @param rarity rarity of the desired character
-     * @return result character after randomly picked
-     */
-    private Character getRandomCharacterByRarity(int rarity) {
-        switch (rarity) {
-            case 5:
-                String[] fiveStarNames = {"Himeko", "Welt Yang", "Bronya", "Gepard", "Seele", "Jingyuan"};
-                return new FiveStarCharacter(fiveStarNames[random.nextInt(fiveStarNames.length)]);
-
-            case 4:
-            default:
-                String[] fourStarNames = {"Serval", "Pela", "Luca", "Hook", "Sushang", "Arlan"};
-                return new FourStarCharacter(fourStarNames[random.nextInt(fourStarNames.length)], true);
-        }
+        return Math.max(rarity, 4);
     }
 
     /**
@@ -234,70 +307,7 @@ public class GachaSystem {
      * @return rarity (3-5) pulled
      */
     private int determineRarity() {
-        if (pityCounter5Star >= 90) {
-            return 5;
-        }
-        if (pityCounter4Star >= 10) {
-            return 4;
-        }
-        double random = Math.random();
-        double cumulative = 0.0;
-        if (random < probabilityTable[2][2]) {
-            return 5;
-        }
-        cumulative += probabilityTable[2][2];
-        if (random < cumulative + probabilityTable[1][2]) {
-            return 4;
-        }
-        return 3;
-    }
-
-    private Item getRandomItemByRarity(int rarity) {
-        switch (rarity) {
-            case 5:
-                // 50% chance of pulling a light cone, 50% chance of pulling a material item
-                if (random.nextBoolean()) {
-                    String[] names = {"Night of Galactic Railway", "Something Irreplaceable", "But the Battle Isn't Over"};
-                    String[] paths = {"Erudition", "Destruction", "Harmony"};
-                    LightCone lc = new LightCone(names[random.nextInt(names.length)],
-                            paths[random.nextInt(paths.length)]);
-                    lc.setRequiredLevel(60);
-                    lc.setValue(1000);
-                    return lc;
-                } else {
-                    String[] names = {"Legendary Material", "Epic Material", "Rare Material"};
-                    MaterialItem item = new MaterialItem(names[random.nextInt(names.length)],
-                            "Rare Material", 5, 800);
-                    return item;
-                }
-            case 4:
-                // the same rule as 5-star
-                if (random.nextBoolean()) {
-                    String[] names = {"Morning Ritual", "Only Silence Remains", "Memories of the Past"};
-                    String[] paths = {"Erudition", "The Hunt", "Harmony"};
-                    LightCone lc = new LightCone(names[random.nextInt(names.length)],
-                            paths[random.nextInt(paths.length)]);
-                    lc.setRequiredLevel(40);
-                    lc.setValue(400);
-                    return lc;
-                } else {
-                    String[] names = {"Advanced Material", "Intermediate Material", "Basic Material"};
-                    MaterialItem item = new MaterialItem(names[random.nextInt(names.length)],
-                            "Common Material", 4, 300);
-                    return item;
-                }
-
-            case 3:
-            default:
-                String[] names = {"Credit", "Adventure Log", "Traveler's Guide", "Refined Aether"};
-                String[] types = {"Currency", "EXP Material", "EXP Material", "Ascension Material"};
-                int[] rarities = {1, 1, 2, 3};
-                int index = random.nextInt(names.length);
-                return new MaterialItem(names[index],
-                        types[index],
-                        rarities[index],
-                        100);
-        }
+        return PityTable.STANDARD.draw(pityCounter5Star, pityCounter4Star, random.nextDouble());
     }
 
     /**
@@ -321,24 +331,28 @@ public class GachaSystem {
      * 5 Star: add probability by 6% every pull after pity counter reached 75
      */
     public void updateProbabilities() {
+        if (applySoftPity()) {
+            double probability = probabilityTable[2][2] * 100;
+            System.out.println("Soft Pity System Activated! Current Possibility For 5 Star Characters: "+ probability);
+        }
+    }
+
+    /**
+     * Update the probability table for the current 5 star pity without printing anything.
+     * @return true if soft pity is active
+     */
+    private boolean applySoftPity() {
         if (pityCounter5Star >= 75) {
-            int softPityPulls = pityCounter5Star - 74;
-            double increase = softPityPulls * 0.06;
-            probabilityTable[2][2] = 0.006 + increase; // Base + bonus rate
-            // Make sure it doesn't greater then 1
-            if (probabilityTable[2][2] > 1.0) {
-                probabilityTable[2][2] = 1.0;
-            }
+            probabilityTable[2][2] = PitySystem.softPityRate(pityCounter5Star); // Base + bonus rate
             probabilityTable[0][2] = 0.943 - (probabilityTable[2][2] - 0.006);
             probabilityTable[1][2] = 0.051; // 4 Star don't change
-            double probability = probabilityTable[2][2] * 100;
-            System.out.println("Soft Pity System Activated! Current Possibility For 5 Star Characters: "+ probability);
-        } else {
-            // reset to default when pity is less than 75
-            probabilityTable[0][2] = 0.943;
-            probabilityTable[1][2] = 0.051;
-            probabilityTable[2][2] = 0.006;
+            return true;
         }
+        // reset to default when pity is less than 75
+        probabilityTable[0][2] = 0.943;
+        probabilityTable[1][2] = 0.051;
+        probabilityTable[2][2] = 0.006;
+        return false;
     }
 
     /**
@@ -347,31 +361,33 @@ public class GachaSystem {
     public void saveHistoryToFile() {
         FileHandler fileHandler = new FileHandler();
         // Combine character and item pull history
-        String data = "=== All Pull History ===\n\n";
-        data += "Item Pull History\n";
-        data += "================\n";
-        for (String record : pullHistory) {
-            data += record + "\n";
+        StringBuilder builder = new StringBuilder();
+        builder.append("=== All Pull History ===\n\n");
+        builder.append("Item Pull History\n");
+        builder.append("================\n");
+        for (int i = 0; i < pullHistory.size(); i++) {
+            builder.append(itemRecordToString(i)).append('\n');
         }
 
-        data += "\nCharacter Pull History\n";
-        data += "================\n";
-        for (String record : characterPullHistory) {
-            data += record + "\n";
+        builder.append("\nCharacter Pull History\n");
+        builder.append("================\n");
+        for (int i = 0; i < characterPullHistory.size(); i++) {
+            builder.append(characterRecordToString(i)).append('\n');
         }
 
-        data += "\n=== Statistics ===\n\n";
-        data += "Item Pull Statistics\n";
-        data += "Total Pulls: " + pullHistory.size() + "\n";
-        data += "Current Pity Count For 5 Stars: " + pityCounter5Star + "/90\n";
-        data += "Current Pity Count For 4 Stars: " + pityCounter4Star + "/10\n";
-        data += "5 Star Guarantee Status " + guaranteed5Star + "\n";
+        builder.append("\n=== Statistics ===\n\n");
+        builder.append("Item Pull Statistics\n");
+        builder.append("Total Pulls: ").append(pullHistory.size()).append('\n');
+        builder.append("Current Pity Count For 5 Stars: ").append(pityCounter5Star).append("/90\n");
+        builder.append("Current Pity Count For 4 Stars: ").append(pityCounter4Star).append("/10\n");
+        builder.append("5 Star Guarantee Status ").append(guaranteed5Star).append('\n');
 
-        data += "\nCharacter Pull Statistics\n";
-        data += "Total Pulls: " + characterPullHistory.size() + "\n";
-        data += "Current Pity Count For 5 Stars: " + characterPitySystem.getFiveStarPity() + "/90\n";
-        data += "Current Pity Count For 4 Stars: " + characterPitySystem.getFourStarPity() + "/10\n";
-        data += "Character Guarantee Status: " + characterPitySystem.getGuaranteeFlag() + "\n";
+        builder.append("\nCharacter Pull Statistics\n");
+        builder.append("Total Pulls: ").append(characterPullHistory.size()).append('\n');
+        builder.append("Current Pity Count For 5 Stars: ").append(characterPitySystem.getFiveStarPity()).append("/90\n");
+        builder.append("Current Pity Count For 4 Stars: ").append(characterPitySystem.getFourStarPity()).append("/10\n");
+        builder.append("Character Guarantee Status: ").append(characterPitySystem.getGuaranteeFlag()).append('\n');
+        String data = builder.toString();
 
         boolean success = fileHandler.exportToTXT(data, "gacha_history.txt");
         if (success) {
@@ -415,14 +431,63 @@ public class GachaSystem {
      *
      * @return the pull history
      */
-    public List<String> getPullHistory() { return new ArrayList<>(pullHistory); }
+    public List<String> getPullHistory() {
+        List<String> records = new ArrayList<>(pullHistory.size());
+        for (int i = 0; i < pullHistory.size(); i++) {
+            records.add(itemRecordToString(i));
+        }
+        return records;
+    }
 
     /**
      * Gets character pull history.
      *
      * @return the character pull history
      */
-    public List<String> getCharacterPullHistory() { return new ArrayList<>(characterPullHistory); }
+    public List<String> getCharacterPullHistory() {
+        List<String> records = new ArrayList<>(characterPullHistory.size());
+        for (int i = 0; i < characterPullHistory.size(); i++) {
+            records.add(characterRecordToString(i));
+        }
+        return records;
+    }
+
+    /**
+     * Gets the binary item pull history log.
+     *
+     * @return the item pull history log
+     */
+    public PullHistoryLog getPullHistoryLog() { return pullHistory; }
+
+    /**
+     * Gets the binary character pull history log.
+     *
+     * @return the character pull history log
+     */
+    public PullHistoryLog getCharacterPullHistoryLog() { return characterPullHistory; }
+
+    /**
+     * Render an item pull record in the history text format
+     * @param record position of the record
+     * @return the text of the record
+     */
+    private String itemRecordToString(int record) {
+        return "Single Pull Item,Pull: " + pullHistory.getPullIndex(record)
+                + ",5 Star Pity Count: " + pullHistory.getFiveStarPity(record)
+                + ",4 Star Pity Count: " + pullHistory.getFourStarPity(record)
+                + ",Got Item: " + pullHistory.getRewardName(record);
+    }
+
+    /**
+     * Render a character pull record in the history text format
+     * @param record position of the record
+     * @return the text of the record
+     */
+    private String characterRecordToString(int record) {
+        return "Character Single Pull,Pull " + characterPullHistory.getPullIndex(record)
+                + ",Gained:" + characterPullHistory.getRewardName(record)
+                + ",Rarity: " + characterPullHistory.getRarity(record);
+    }
 
     /**
      * Gets pity system.
@@ -11,6 +11,7 @@ public class PitySystem {
     private int fiveStarPity;
     private int fourStarPity;
     private boolean guaranteeFlag;
+    private boolean featuredGuarantee;
 
     /**
      * Instantiates a new Pity system (this system does not need an arg)
@@ -20,6 +21,7 @@ public class PitySystem {
         fiveStarPity = 0;
         fourStarPity = 0;
         guaranteeFlag = false;
+        featuredGuarantee = false;
     }
 
     /**
@@ -46,6 +48,17 @@ public class PitySystem {
         }
     }
 
+    /**
+     * Restore pity counters, e.g. from a save or a {@link PullJournal}
+     *
+     * @param fiveStarPity the 5 star pity count
+     * @param fourStarPity the 4 star pity count
+     */
+    public void restore(int fiveStarPity, int fourStarPity) {
+        this.fiveStarPity = Math.max(0, fiveStarPity);
+        this.fourStarPity = Math.max(0, fourStarPity);
+    }
+
     /**
      * Check guarantee if it is time for player to obtain a 4/5 star item/character
      *
@@ -71,6 +84,17 @@ public class PitySystem {
      * @return the double
      */
     public double calculateSoftPity() {
+        return softPityRate(fiveStarPity);
+    }
+
+    /**
+     * Calculate the 5 star rate for a given 5 star pity count.
+     * Base rate is 0.6%, after 75 pulls every pull adds 6%.
+     *
+     * @param fiveStarPity the 5 star pity count
+     * @return the 5 star rate (0-1)
+     */
+    public static double softPityRate(int fiveStarPity) {
         // calculate soft pity for five stars after 75
         if (fiveStarPity < 75) {
             return 0.006;
@@ -83,6 +107,20 @@ public class PitySystem {
         return Math.min(increasedRate, 1.0);
     }
 
+    /**
+     * Roll a rarity with the pity rules: hard pity at 90 (5 star) and 10 (4 star),
+     * soft pity for 5 stars after 75, 4 star base rate is 5.1%.
+     * Uses the precomputed {@link PityTable#STANDARD} thresholds.
+     *
+     * @param fiveStarPity the 5 star pity count of this pull
+     * @param fourStarPity the 4 star pity count of this pull
+     * @param roll         a random number between 0 (inclusive) and 1 (exclusive)
+     * @return the rarity rolled (3-5)
+     */
+    public static int rollRarity(int fiveStarPity, int fourStarPity, double roll) {
+        return PityTable.STANDARD.draw(fiveStarPity, fourStarPity, roll);
+    }
+
     /**
      * Gets five star pity.
      *
@@ -103,4 +141,18 @@ public class PitySystem {
      * @return the guarantee flag
      */
     public boolean getGuaranteeFlag() { return guaranteeFlag; }
+
+    /**
+     * Gets whether the next 5 star is guaranteed to be featured (the last 50/50 was lost).
+     *
+     * @return the featured guarantee
+     */
+    public boolean hasFeaturedGuarantee() { return featuredGuarantee; }
+
+    /**
+     * Sets whether the next 5 star is guaranteed to be featured.
+     *
+     * @param featuredGuarantee the featured guarantee
+     */
+    public void setFeaturedGuarantee(boolean featuredGuarantee) { this.featuredGuarantee = featuredGuarantee; }
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+package systems.gacha;
+
+/**
+ * Precomputed cumulative rarity thresholds for every pity state.
+ * Indexed by 5 star pity (0-90) and 4 star pity (0-10), counts above the hard pity use the hard pity row.
+ * A rarity draw is a single array lookup and one random number, instead of rewriting the probability table every pull.
+ * <p>
+ * The table is immutable after construction, so one instance can be shared by any number of gacha sessions and threads.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PitySystem
+ */
+public final class PityTable {
+    /**
+     * 5 star hard pity
+     */
+    public static final int FIVE_STAR_HARD_PITY = 90;
+    /**
+     * 4 star hard pity
+     */
+    public static final int FOUR_STAR_HARD_PITY = 10;
+    /**
+     * 4 star base rate
+     */
+    public static final double FOUR_STAR_RATE = 0.051;
+
+    /**
+     * The standard table, 0.6% 5 star and 5.1% 4 star with soft pity after 75 pulls
+     */
+    public static final PityTable STANDARD = new PityTable();
+
+    private static final int COLUMNS = FOUR_STAR_HARD_PITY + 1;
+
+    // roll < fiveStarThresholds -> 5 star, roll < fourStarThresholds -> 4 star, otherwise 3 star
+    private final double[] fiveStarThresholds;
+    private final double[] fourStarThresholds;
+
+    private PityTable() {
+        int size = (FIVE_STAR_HARD_PITY + 1) * COLUMNS;
+        fiveStarThresholds = new double[size];
+        fourStarThresholds = new double[size];
+        for (int fiveStarPity = 0; fiveStarPity <= FIVE_STAR_HARD_PITY; fiveStarPity++) {
+            for (int fourStarPity = 0; fourStarPity <= FOUR_STAR_HARD_PITY; fourStarPity++) {
+                int index = fiveStarPity * COLUMNS + fourStarPity;
+                if (fiveStarPity >= FIVE_STAR_HARD_PITY) {
+                    fiveStarThresholds[index] = 1.0;
+                    fourStarThresholds[index] = 1.0;
+                } else if (fourStarPity >= FOUR_STAR_HARD_PITY) {
+                    // 4 star hard pity skips the 5 star roll
+                    fiveStarThresholds[index] = 0.0;
+                    fourStarThresholds[index] = 1.0;
+                } else {
+                    double fiveStarRate = PitySystem.softPityRate(fiveStarPity);
+                    fiveStarThresholds[index] = fiveStarRate;
+                    fourStarThresholds[index] = Math.min(1.0, fiveStarRate + FOUR_STAR_RATE);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draw a rarity for a pity state
+     *
+     * @param fiveStarPity the 5 star pity count of this pull
+     * @param fourStarPity the 4 star pity count of this pull
+     * @param roll         a random number between 0 (inclusive) and 1 (exclusive)
+     * @return the rarity drawn (3-5)
+     */
+    public int draw(int fiveStarPity, int fourStarPity, double roll) {
+        int index = indexOf(fiveStarPity, fourStarPity);
+        if (roll < fiveStarThresholds[index]) {
+            return 5;
+        }
+        if (roll < fourStarThresholds[index]) {
+            return 4;
+        }
+        return 3;
+    }
+
+    /**
+     * Gets the 5 star threshold (chance of a 5 star) for a pity state
+     *
+     * @param fiveStarPity the 5 star pity count
+     * @param fourStarPity the 4 star pity count
+     * @return the 5 star threshold
+     */
+    public double getFiveStarThreshold(int fiveStarPity, int fourStarPity) {
+        return fiveStarThresholds[indexOf(fiveStarPity, fourStarPity)];
+    }
+
+    /**
+     * Gets the cumulative 4 star threshold (chance of a 4 or 5 star) for a pity state
+     *
+     * @param fiveStarPity the 5 star pity count
+     * @param fourStarPity the 4 star pity count
+     * @return the cumulative 4 star threshold
+     */
+    public double getFourStarThreshold(int fiveStarPity, int fourStarPity) {
+        return fourStarThresholds[indexOf(fiveStarPity, fourStarPity)];
+    }
+
+    private int indexOf(int fiveStarPity, int fourStarPity) {
+        int row = Math.max(0, Math.min(fiveStarPity, FIVE_STAR_HARD_PITY));
+        int col = Math.max(0, Math.min(fourStarPity, FOUR_STAR_HARD_PITY));
+        return row * COLUMNS + col;
+    }
+}
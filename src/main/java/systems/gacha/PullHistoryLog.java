@@ -0,0 +1,199 @@
+package systems.gacha;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Represents a compact pull history, every pull is a fixed width record of 3 ints (12 bytes) in one primitive array:
+ * pull index, reward id, and banner id / rarity / 5 star pity / 4 star pity packed into the last int.
+ * Text and CSV are only produced when the history is exported, and are written straight into the output
+ * so exporting is linear in the number of pulls.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see RewardCatalog#findById(int)
+ */
+public class PullHistoryLog {
+    /**
+     * Number of ints in one record
+     */
+    public static final int RECORD_INTS = 3;
+    /**
+     * Number of bytes in one record
+     */
+    public static final int RECORD_BYTES = RECORD_INTS * 4;
+
+    private int[] records;
+    private int size;
+
+    /**
+     * Instantiates a new empty Pull history log
+     */
+    public PullHistoryLog() {
+        this(64);
+    }
+
+    /**
+     * Instantiates a new Pull history log with room for the provided number of pulls
+     *
+     * @param capacity the initial capacity in pulls
+     */
+    public PullHistoryLog(int capacity) {
+        this.records = new int[Math.max(1, capacity) * RECORD_INTS];
+        this.size = 0;
+    }
+
+    /**
+     * Append a pull to the log, the pull index is the position in the log starting at 1
+     *
+     * @param bannerId     the banner id (0-65535), 0 and 1 are the item and character pulls
+     * @param rarity       the rarity pulled (0-15)
+     * @param rewardId     the id of the reward pulled
+     * @param fiveStarPity the 5 star pity count of the pull (0-255)
+     * @param fourStarPity the 4 star pity count of the pull (0-15)
+     * @return the pull index of the new record
+     */
+    public int append(int bannerId, int rarity, int rewardId, int fiveStarPity, int fourStarPity) {
+        return append(size + 1, bannerId, rarity, rewardId, fiveStarPity, fourStarPity);
+    }
+
+    /**
+     * Append a pull with a provided pull index
+     *
+     * @param pullIndex    the pull index
+     * @param bannerId     the banner id (0-65535), 0 and 1 are the item and character pulls
+     * @param rarity       the rarity pulled (0-15)
+     * @param rewardId     the id of the reward pulled
+     * @param fiveStarPity the 5 star pity count of the pull (0-255)
+     * @param fourStarPity the 4 star pity count of the pull (0-15)
+     * @return the pull index of the new record
+     */
+    public int append(int pullIndex, int bannerId, int rarity, int rewardId, int fiveStarPity, int fourStarPity) {
+        if (size * RECORD_INTS == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        int base = size * RECORD_INTS;
+        records[base] = pullIndex;
+        records[base + 1] = rewardId;
+        records[base + 2] = pack(bannerId, rarity, fiveStarPity, fourStarPity);
+        size++;
+        return pullIndex;
+    }
+
+    /**
+     * Pack banner id, rarity and pity counts into one int
+     *
+     * @param bannerId     the banner id (0-65535), 0 and 1 are the item and character pulls
+     * @param rarity       the rarity (0-15)
+     * @param fiveStarPity the 5 star pity count (0-255)
+     * @param fourStarPity the 4 star pity count (0-15)
+     * @return the packed int
+     */
+    public static int pack(int bannerId, int rarity, int fiveStarPity, int fourStarPity) {
+        return (bannerId & 0xFFFF) << 16 | (rarity & 0xF) << 12 | (fiveStarPity & 0xFF) << 4 | (fourStarPity & 0xF);
+    }
+
+    /**
+     * Gets the number of pulls in the log.
+     *
+     * @return the size
+     */
+    public int size() { return size; }
+
+    /**
+     * Gets the pull index of a record.
+     *
+     * @param record the record position (0 based)
+     * @return the pull index
+     */
+    public int getPullIndex(int record) { return records[check(record) * RECORD_INTS]; }
+
+    /**
+     * Gets the reward id of a record.
+     *
+     * @param record the record position (0 based)
+     * @return the reward id
+     */
+    public int getRewardId(int record) { return records[check(record) * RECORD_INTS + 1]; }
+
+    /**
+     * Gets the banner id of a record.
+     *
+     * @param record the record position (0 based)
+     * @return the banner id
+     */
+    public int getBannerId(int record) { return records[check(record) * RECORD_INTS + 2] >>> 16; }
+
+    /**
+     * Gets the rarity of a record.
+     *
+     * @param record the record position (0 based)
+     * @return the rarity
+     */
+    public int getRarity(int record) { return (records[check(record) * RECORD_INTS + 2] >>> 12) & 0xF; }
+
+    /**
+     * Gets the 5 star pity count of a record.
+     *
+     * @param record the record position (0 based)
+     * @return the 5 star pity count
+     */
+    public int getFiveStarPity(int record) { return (records[check(record) * RECORD_INTS + 2] >>> 4) & 0xFF; }
+
+    /**
+     * Gets the 4 star pity count of a record.
+     *
+     * @param record the record position (0 based)
+     * @return the 4 star pity count
+     */
+    public int getFourStarPity(int record) { return records[check(record) * RECORD_INTS + 2] & 0xF; }
+
+    /**
+     * Gets the name of the reward of a record, looked up in the {@link RewardCatalog}.
+     *
+     * @param record the record position (0 based)
+     * @return the reward name, or "Unknown #id" if the reward is not in the catalog
+     */
+    public String getRewardName(int record) {
+        int rewardId = getRewardId(record);
+        RewardEntry entry = RewardCatalog.findById(rewardId);
+        return entry == null ? "Unknown #" + rewardId : entry.getName();
+    }
+
+    /**
+     * Write the whole log as CSV (with a header line) into the output
+     *
+     * @param out the output to write into (StringBuilder, Writer...)
+     */
+    public void writeCSV(Appendable out) {
+        try {
+            out.append("Pull,Banner,Rarity,Reward Id,Reward,5 Star Pity,4 Star Pity\n");
+            for (int i = 0; i < size; i++) {
+                out.append(String.valueOf(getPullIndex(i))).append(',')
+                        .append(String.valueOf(getBannerId(i))).append(',')
+                        .append(String.valueOf(getRarity(i))).append(',')
+                        .append(String.valueOf(getRewardId(i))).append(',')
+                        .append(getRewardName(i)).append(',')
+                        .append(String.valueOf(getFiveStarPity(i))).append(',')
+                        .append(String.valueOf(getFourStarPity(i))).append('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Remove all records, the allocated space is kept
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    private int check(int record) {
+        if (record < 0 || record >= size) {
+            throw new IndexOutOfBoundsException("Record " + record + " out of " + size);
+        }
+        return record;
+    }
+}
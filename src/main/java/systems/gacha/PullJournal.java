@@ -0,0 +1,243 @@
+package systems.gacha;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Represents an append-only pull journal on a memory mapped file.
+ * Every pull is written into the mapped file as soon as it happens, so it survives a crash of the game
+ * (the operating system still has the page), and the file is only forced to disk once every few pulls (group commit)
+ * or when {@link #commit()} is called, instead of paying for a disk sync on every pull.
+ * <p>
+ * File layout: a 16 byte header (magic, version) followed by 16 byte records, a {@link PullHistoryLog} record
+ * (sequence number, reward id, packed banner / rarity / pity) and a checksum. When the journal is opened,
+ * records are read until the first empty or broken record, anything after it (a torn write) is cleared.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PullHistoryLog
+ * @see GachaSystem#attachJournal(PullJournal)
+ */
+public class PullJournal implements Closeable {
+    /**
+     * Number of bytes in one journal record
+     */
+    public static final int RECORD_BYTES = PullHistoryLog.RECORD_BYTES + 4;
+    /**
+     * Reward id used for pulls made without rolling a reward (batch pulls)
+     */
+    public static final int NO_REWARD = 0;
+    /**
+     * Default number of pulls between two disk syncs
+     */
+    public static final int DEFAULT_COMMIT_INTERVAL = 64;
+
+    private static final int MAGIC = 0x504A4E4C; // "PJNL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int GROW_RECORDS = 65536; // 1 MB each time the file grows
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final int commitInterval;
+    private MappedByteBuffer buffer;
+    private int capacity;
+    private int recordCount;
+    private int uncommitted;
+
+    /**
+     * Open (or create) a journal with the default commit interval
+     *
+     * @param path the path of the journal file
+     * @throws IOException if the file cannot be opened or is not a pull journal
+     */
+    public PullJournal(String path) throws IOException {
+        this(path, DEFAULT_COMMIT_INTERVAL);
+    }
+
+    /**
+     * Open (or create) a journal, existing records are recovered
+     *
+     * @param path           the path of the journal file
+     * @param commitInterval the number of pulls between two disk syncs
+     * @throws IOException if the file cannot be opened or is not a pull journal
+     */
+    public PullJournal(String path, int commitInterval) throws IOException {
+        this.commitInterval = Math.max(1, commitInterval);
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        try {
+            long size = channel.size();
+            if (size < HEADER_BYTES) {
+                map(GROW_RECORDS);
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, VERSION);
+                buffer.force();
+            } else {
+                map((int) ((size - HEADER_BYTES) / RECORD_BYTES));
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                    throw new IOException(path + " is not a pull journal");
+                }
+            }
+            recover();
+        } catch (IOException | RuntimeException e) {
+            // e.g. a malformed file failing in map or recover, never leak the file
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Append a pull to the journal
+     *
+     * @param bannerId     the banner id
+     * @param rarity       the rarity pulled
+     * @param rewardId     the id of the reward pulled, {@link #NO_REWARD} if no reward was rolled
+     * @param fiveStarPity the 5 star pity count of the pull
+     * @param fourStarPity the 4 star pity count of the pull
+     * @return the sequence number of the record (starting at 1)
+     * @throws IOException if the journal cannot grow
+     */
+    public int append(int bannerId, int rarity, int rewardId, int fiveStarPity, int fourStarPity) throws IOException {
+        if (recordCount == capacity) {
+            // sync what we have before mapping a bigger region
+            buffer.force();
+            map(capacity + GROW_RECORDS);
+        }
+        int sequence = recordCount + 1;
+        int packed = PullHistoryLog.pack(bannerId, rarity, fiveStarPity, fourStarPity);
+        int offset = offsetOf(recordCount);
+        buffer.putInt(offset, sequence);
+        buffer.putInt(offset + 4, rewardId);
+        buffer.putInt(offset + 8, packed);
+        buffer.putInt(offset + 12, checksum(sequence, rewardId, packed));
+        recordCount++;
+        uncommitted++;
+        if (uncommitted >= commitInterval) {
+            commit();
+        }
+        return sequence;
+    }
+
+    /**
+     * Force all appended records to disk
+     */
+    public void commit() {
+        if (uncommitted > 0) {
+            buffer.force();
+            uncommitted = 0;
+        }
+    }
+
+    /**
+     * Restore the pity counters of a banner from the last record of that banner in the journal
+     *
+     * @param bannerId the banner id
+     * @param pity     the pity system to restore
+     * @return true if a record of the banner was found
+     */
+    public boolean recoverPity(int bannerId, PitySystem pity) {
+        // walk back from the tail, the latest pull of the banner has the current pity
+        for (int i = recordCount - 1; i >= 0; i--) {
+            int packed = buffer.getInt(offsetOf(i) + 8);
+            if (packed >>> 16 != bannerId) {
+                continue;
+            }
+            int rarity = (packed >>> 12) & 0xF;
+            int fiveStarPity = (packed >>> 4) & 0xFF;
+            int fourStarPity = packed & 0xF;
+            // pity in the record is from before the pull, apply the reset of the pulled rarity
+            pity.restore(rarity == 5 ? 0 : fiveStarPity, rarity == 4 ? 0 : fourStarPity);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Read all pulls of a banner that rolled a reward into a pull history log
+     *
+     * @param bannerId the banner id
+     * @param log      the log to append to
+     * @return the number of records read
+     */
+    public int readInto(int bannerId, PullHistoryLog log) {
+        int count = 0;
+        for (int i = 0; i < recordCount; i++) {
+            int offset = offsetOf(i);
+            int rewardId = buffer.getInt(offset + 4);
+            int packed = buffer.getInt(offset + 8);
+            if (packed >>> 16 != bannerId || rewardId == NO_REWARD) {
+                continue;
+            }
+            log.append(bannerId, (packed >>> 12) & 0xF, rewardId, (packed >>> 4) & 0xFF, packed & 0xF);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Gets the number of records in the journal.
+     *
+     * @return the record count
+     */
+    public int getRecordCount() { return recordCount; }
+
+    /**
+     * Commit all records and close the journal file
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        commit();
+        file.close();
+    }
+
+    /**
+     * Find the end of the valid records and clear anything written after it
+     */
+    private void recover() {
+        recordCount = 0;
+        while (recordCount < capacity) {
+            int offset = offsetOf(recordCount);
+            int sequence = buffer.getInt(offset);
+            int rewardId = buffer.getInt(offset + 4);
+            int packed = buffer.getInt(offset + 8);
+            if (sequence != recordCount + 1 || buffer.getInt(offset + 12) != checksum(sequence, rewardId, packed)) {
+                break;
+            }
+            recordCount++;
+        }
+        boolean cleared = false;
+        for (int i = recordCount; i < capacity && buffer.getInt(offsetOf(i)) != 0; i++) {
+            for (int b = 0; b < RECORD_BYTES; b += 4) {
+                buffer.putInt(offsetOf(i) + b, 0);
+            }
+            cleared = true;
+        }
+        if (cleared) {
+            buffer.force();
+        }
+    }
+
+    private void map(int records) throws IOException {
+        capacity = records;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) records * RECORD_BYTES);
+    }
+
+    private static int offsetOf(int record) {
+        return HEADER_BYTES + record * RECORD_BYTES;
+    }
+
+    private static int checksum(int sequence, int rewardId, int packed) {
+        int h = 0x5A17C0DE;
+        h = h * 31 + sequence;
+        h = h * 31 + rewardId;
+        h = h * 31 + packed;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,23 @@
+package systems.gacha;
+
+/**
+ * Receives pull results from the headless batch mode of the gacha system.
+ * Nothing is printed and no history record is built when pulling in batch mode,
+ * every pull is handed to the sink as plain numbers instead.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see GachaSystem#pullBatch(int, PullSink)
+ */
+public interface PullSink {
+    /**
+     * Accept a single pull result.
+     * Pity counts are the values used for the roll, before any reset caused by this pull.
+     *
+     * @param pullNumber   the pull number inside the batch, starting at 1
+     * @param rarity       the rarity pulled (3-5)
+     * @param fiveStarPity the 5 star pity count when the pull was made
+     * @param fourStarPity the 4 star pity count when the pull was made
+     */
+    void accept(int pullNumber, int rarity, int fiveStarPity, int fourStarPity);
+}
@@ -0,0 +1,237 @@
+package systems.gacha;
+
+import util.random.RandomSource;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo harness used to validate the pity rules in {@link PitySystem}.
+ * Pulls are split into a fixed number of chunks, every chunk is a player pulling with fresh pity
+ * and its own {@link RandomSource} stream split from the seed, chunks run in parallel on a fork join pool.
+ * Since the chunks and their random streams only depend on the seed, the same seed always gives the same report
+ * no matter how many cores are used.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see PitySystem#rollRarity(int, int, double)
+ */
+public class RateSimulator {
+    /**
+     * Default number of chunks, fixed so results don't depend on the machine
+     */
+    public static final int DEFAULT_CHUNKS = 256;
+
+    private final long seed;
+    private final int chunks;
+
+    /**
+     * Instantiates a new Rate simulator with the default chunk count
+     *
+     * @param seed the seed of the simulation
+     */
+    public RateSimulator(long seed) {
+        this(seed, DEFAULT_CHUNKS);
+    }
+
+    /**
+     * Instantiates a new Rate simulator
+     *
+     * @param seed   the seed of the simulation
+     * @param chunks the number of independent chunks (players) to split the pulls into
+     */
+    public RateSimulator(long seed, int chunks) {
+        if (chunks < 1) {
+            throw new IllegalArgumentException("Chunk count must be at least 1");
+        }
+        this.seed = seed;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Run the simulation on the common fork join pool (all cores)
+     *
+     * @param totalPulls the total number of pulls to simulate
+     * @return the report of the simulation
+     */
+    public Report run(long totalPulls) {
+        return run(totalPulls, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Run the simulation on the provided pool
+     *
+     * @param totalPulls the total number of pulls to simulate
+     * @param pool       the pool running the chunks
+     * @return the report of the simulation
+     */
+    public Report run(long totalPulls, ForkJoinPool pool) {
+        // split random streams up front so every chunk gets the same stream on every run
+        RandomSource root = RandomSource.seeded(seed);
+        RandomSource[] streams = new RandomSource[chunks];
+        for (int i = 0; i < chunks; i++) {
+            streams[i] = root.split();
+        }
+        long basePulls = totalPulls / chunks;
+        long extraPulls = totalPulls % chunks;
+        try {
+            return pool.submit(() -> IntStream.range(0, chunks).parallel()
+                    .mapToObj(i -> simulateChunk(streams[i], basePulls + (i < extraPulls ? 1 : 0)))
+                    .reduce(new Report(), Report::merge))
+                    .get();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Simulate the pulls of one chunk with fresh pity
+     * @param rng random stream of this chunk
+     * @param pulls number of pulls
+     * @return report of this chunk
+     */
+    private Report simulateChunk(RandomSource rng, long pulls) {
+        Report report = new Report();
+        int fiveStarPity = 0;
+        int fourStarPity = 0;
+        for (long i = 0; i < pulls; i++) {
+            fiveStarPity++;
+            fourStarPity++;
+            int rarity = PitySystem.rollRarity(fiveStarPity, fourStarPity, rng.nextDouble());
+            report.attemptsAtPity[fiveStarPity]++;
+            if (rarity == 5) {
+                report.fiveStarsAtPity[fiveStarPity]++;
+                fiveStarPity = 0;
+            } else if (rarity == 4) {
+                report.fourStarCount++;
+                fourStarPity = 0;
+            }
+        }
+        report.totalPulls = pulls;
+        return report;
+    }
+
+    /**
+     * Empirical results of a simulation.
+     * Arrays are indexed by 5 star pity count (1-90), index 0 is unused.
+     */
+    public static class Report {
+        private long totalPulls;
+        private long fourStarCount;
+        private final long[] attemptsAtPity = new long[91];
+        private final long[] fiveStarsAtPity = new long[91];
+
+        private Report merge(Report other) {
+            Report merged = new Report();
+            merged.totalPulls = totalPulls + other.totalPulls;
+            merged.fourStarCount = fourStarCount + other.fourStarCount;
+            for (int i = 0; i < attemptsAtPity.length; i++) {
+                merged.attemptsAtPity[i] = attemptsAtPity[i] + other.attemptsAtPity[i];
+                merged.fiveStarsAtPity[i] = fiveStarsAtPity[i] + other.fiveStarsAtPity[i];
+            }
+            return merged;
+        }
+
+        /**
+         * Gets total pulls simulated.
+         *
+         * @return the total pulls
+         */
+        public long getTotalPulls() { return totalPulls; }
+
+        /**
+         * Gets the number of 5 star pulls.
+         *
+         * @return the 5 star count
+         */
+        public long getFiveStarCount() {
+            long count = 0;
+            for (long hits : fiveStarsAtPity) {
+                count += hits;
+            }
+            return count;
+        }
+
+        /**
+         * Gets the number of 4 star pulls.
+         *
+         * @return the 4 star count
+         */
+        public long getFourStarCount() { return fourStarCount; }
+
+        /**
+         * Gets the overall 5 star rate, including soft and hard pity.
+         *
+         * @return the 5 star rate
+         */
+        public double getFiveStarRate() { return totalPulls == 0 ? 0 : (double) getFiveStarCount() / totalPulls; }
+
+        /**
+         * Gets the overall 4 star rate, including hard pity.
+         *
+         * @return the 4 star rate
+         */
+        public double getFourStarRate() { return totalPulls == 0 ? 0 : (double) fourStarCount / totalPulls; }
+
+        /**
+         * Gets the number of 5 stars obtained exactly at a pity count (distribution of pulls until 5 star).
+         *
+         * @param pity the pity count (1-90)
+         * @return the number of 5 stars obtained on that pull
+         */
+        public long getPullsUntilFiveStar(int pity) { return fiveStarsAtPity[pity]; }
+
+        /**
+         * Gets the empirical 5 star rate at a pity count (soft pity curve).
+         *
+         * @param pity the pity count (1-90)
+         * @return the empirical rate for that pity
+         */
+        public double getFiveStarRateAtPity(int pity) {
+            return attemptsAtPity[pity] == 0 ? 0 : (double) fiveStarsAtPity[pity] / attemptsAtPity[pity];
+        }
+
+        /**
+         * Gets the average pulls needed for a 5 star.
+         *
+         * @return the expected pulls to 5 star
+         */
+        public double getExpectedPullsToFiveStar() {
+            long count = 0;
+            long weighted = 0;
+            for (int pity = 1; pity < fiveStarsAtPity.length; pity++) {
+                count += fiveStarsAtPity[pity];
+                weighted += pity * fiveStarsAtPity[pity];
+            }
+            return count == 0 ? 0 : (double) weighted / count;
+        }
+
+        /**
+         * Print the report, soft pity curve is printed from pity 70.
+         */
+        public void printReport() {
+            System.out.println("=== Rate Simulation Report ===");
+            System.out.println("Total Pulls: " + totalPulls);
+            System.out.println("5 Star Rate: " + getFiveStarRate() * 100 + "% (base 0.6%)");
+            System.out.println("4 Star Rate: " + getFourStarRate() * 100 + "% (base 5.1%)");
+            System.out.println("Expected Pulls To 5 Star: " + getExpectedPullsToFiveStar());
+            System.out.println("Pity,Attempts,5 Stars,Rate,Expected Rate");
+            for (int pity = 70; pity < attemptsAtPity.length; pity++) {
+                double expected = pity >= 90 ? 1.0 : PitySystem.softPityRate(pity);
+                System.out.println(pity + "," + attemptsAtPity[pity] + "," + fiveStarsAtPity[pity] + ","
+                        + getFiveStarRateAtPity(pity) + "," + expected);
+            }
+        }
+    }
+
+    /**
+     * Run a simulation from the command line: seed and total pulls (default 42 and 100 million)
+     *
+     * @param args the args (seed, pulls)
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : 42L;
+        long pulls = args.length > 1 ? Long.parseLong(args[1]) : 100_000_000L;
+        new RateSimulator(seed).run(pulls).printReport();
+    }
+}
@@ -0,0 +1,195 @@
+package systems.gacha;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The catalog of the standard gacha reward pools, pools are built once when the class is loaded.
+ * Entry ids are unique across all pools: items use rarity * 1000 + n, characters use 10000 + rarity * 1000 + n.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see RewardPool
+ * @see RewardEntry
+ */
+public final class RewardCatalog {
+    /**
+     * The 5 star item pool, 50% light cones and 50% materials
+     */
+    public static final RewardPool FIVE_STAR_ITEMS;
+    /**
+     * The 4 star item pool, 50% light cones and 50% materials
+     */
+    public static final RewardPool FOUR_STAR_ITEMS;
+    /**
+     * The 3 star item pool
+     */
+    public static final RewardPool THREE_STAR_ITEMS;
+    /**
+     * The 5 star character pool
+     */
+    public static final RewardPool FIVE_STAR_CHARACTERS;
+    /**
+     * The 4 star character pool
+     */
+    public static final RewardPool FOUR_STAR_CHARACTERS;
+
+    private static final Map<Integer, RewardEntry> entriesById = new ConcurrentHashMap<>();
+    // number of registered pools holding each id, guarded by the class lock
+    private static final Map<Integer, Integer> registrations = new HashMap<>();
+
+    static {
+        FIVE_STAR_ITEMS = itemPool("5 Star Items", 5,
+                new String[]{"Night of Galactic Railway", "Something Irreplaceable", "But the Battle Isn't Over"},
+                new String[]{"Erudition", "Destruction", "Harmony"}, 60, 1000,
+                new String[]{"Legendary Material", "Epic Material", "Rare Material"}, "Rare Material", 800);
+        FOUR_STAR_ITEMS = itemPool("4 Star Items", 4,
+                new String[]{"Morning Ritual", "Only Silence Remains", "Memories of the Past"},
+                new String[]{"Erudition", "The Hunt", "Harmony"}, 40, 400,
+                new String[]{"Advanced Material", "Intermediate Material", "Basic Material"}, "Common Material", 300);
+
+        List<RewardEntry> threeStar = new ArrayList<>();
+        threeStar.add(RewardEntry.material(3001, "Credit", "Currency", 3, 1, 100, 1));
+        threeStar.add(RewardEntry.material(3002, "Adventure Log", "EXP Material", 3, 1, 100, 1));
+        threeStar.add(RewardEntry.material(3003, "Traveler's Guide", "EXP Material", 3, 2, 100, 1));
+        threeStar.add(RewardEntry.material(3004, "Refined Aether", "Ascension Material", 3, 3, 100, 1));
+        THREE_STAR_ITEMS = register(new RewardPool("3 Star Items", threeStar));
+
+        FIVE_STAR_CHARACTERS = characterPool("5 Star Characters", 5,
+                new String[]{"Himeko", "Welt Yang", "Bronya", "Gepard", "Seele", "Jingyuan"});
+        FOUR_STAR_CHARACTERS = characterPool("4 Star Characters", 4,
+                new String[]{"Serval", "Pela", "Luca", "Hook", "Sushang", "Arlan"});
+    }
+
+    private RewardCatalog() {}
+
+    /**
+     * Build an item pool, every light cone name can come with every path,
+     * light cones and materials each take half of the pool
+     */
+    private static RewardPool itemPool(String poolName, int rarity, String[] coneNames, String[] paths,
+                                       int requiredLevel, int coneValue, String[] materialNames,
+                                       String materialType, int materialValue) {
+        List<RewardEntry> entries = new ArrayList<>();
+        int id = rarity * 1000 + 1;
+        int combinations = coneNames.length * paths.length;
+        for (String coneName : coneNames) {
+            for (String path : paths) {
+                entries.add(RewardEntry.lightCone(id++, coneName, path, rarity, requiredLevel, coneValue, 1));
+            }
+        }
+        // weight materials so they add up to the same total as the light cones
+        double materialWeight = (double) combinations / materialNames.length;
+        for (String materialName : materialNames) {
+            entries.add(RewardEntry.material(id++, materialName, materialType, rarity, rarity, materialValue,
+                    materialWeight));
+        }
+        return register(new RewardPool(poolName, entries));
+    }
+
+    private static RewardPool characterPool(String poolName, int rarity, String[] names) {
+        List<RewardEntry> entries = new ArrayList<>();
+        int id = 10000 + rarity * 1000 + 1;
+        for (String name : names) {
+            entries.add(RewardEntry.character(id++, name, rarity, 1));
+        }
+        return register(new RewardPool(poolName, entries));
+    }
+
+    /**
+     * Register the entries of a pool so they can be found by id (used for banner pools).
+     * An id can be registered by several pools if they hold the same reward (e.g. a standard reward featured
+     * on a banner, or the same banner built again by a reloaded registry), the first entry registered is kept
+     * until every pool holding the id is unregistered. Nothing is registered if an id is already used
+     * by another reward
+     *
+     * @param pool the pool to register
+     * @return the pool
+     * @throws IllegalArgumentException if an id of the pool is used by another reward
+     * @see #unregister(RewardPool)
+     */
+    public static synchronized RewardPool register(RewardPool pool) {
+        Map<Integer, RewardEntry> added = new HashMap<>();
+        for (int i = 0; i < pool.size(); i++) {
+            RewardEntry entry = pool.getEntry(i);
+            RewardEntry existing = entriesById.get(entry.getId());
+            if (existing == null) {
+                existing = added.get(entry.getId());
+            }
+            if (existing != null && !existing.isSameReward(entry)) {
+                throw new IllegalArgumentException("Reward id " + entry.getId() + " of " + entry.getName()
+                        + " is already used by " + existing.getName());
+            }
+            added.put(entry.getId(), entry);
+        }
+        for (int i = 0; i < pool.size(); i++) {
+            RewardEntry entry = pool.getEntry(i);
+            entriesById.putIfAbsent(entry.getId(), entry);
+            registrations.merge(entry.getId(), 1, Integer::sum);
+        }
+        return pool;
+    }
+
+    /**
+     * Unregister the entries of a pool registered by {@link #register(RewardPool)} (e.g. when a timed banner
+     * is removed), an entry can no longer be found by id once no registered pool holds it.
+     * The standard pools are never unregistered
+     *
+     * @param pool the pool to unregister
+     */
+    public static synchronized void unregister(RewardPool pool) {
+        for (int i = 0; i < pool.size(); i++) {
+            int id = pool.getEntry(i).getId();
+            Integer count = registrations.get(id);
+            if (count == null) {
+                continue;
+            }
+            if (count > 1) {
+                registrations.put(id, count - 1);
+            } else {
+                registrations.remove(id);
+                entriesById.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Gets the standard item pool of a rarity
+     *
+     * @param rarity the rarity (3-5)
+     * @return the item pool
+     */
+    public static RewardPool itemPoolFor(int rarity) {
+        switch (rarity) {
+            case 5:
+                return FIVE_STAR_ITEMS;
+            case 4:
+                return FOUR_STAR_ITEMS;
+            default:
+                return THREE_STAR_ITEMS;
+        }
+    }
+
+    /**
+     * Gets the standard character pool of a rarity
+     *
+     * @param rarity the rarity (4-5)
+     * @return the character pool
+     */
+    public static RewardPool characterPoolFor(int rarity) {
+        return rarity >= 5 ? FIVE_STAR_CHARACTERS : FOUR_STAR_CHARACTERS;
+    }
+
+    /**
+     * Find a registered entry by its id
+     *
+     * @param id the id of the entry
+     * @return the entry, or null if no entry has this id
+     */
+    public static RewardEntry findById(int id) {
+        return entriesById.get(id);
+    }
+}
@@ -0,0 +1,201 @@
+package systems.gacha;
+
+import entities.characters.Character;
+import entities.characters.FiveStarCharacter;
+import entities.characters.FourStarCharacter;
+import entities.equipment.LightCone;
+import entities.items.Item;
+import entities.items.MaterialItem;
+
+import java.util.Objects;
+
+/**
+ * Represents one entry of a gacha reward pool, a template of the reward with its weight in the pool.
+ * Entries are immutable and shared by every pull, the actual item or character object is only created
+ * when the entry is pulled.
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see RewardPool
+ */
+public final class RewardEntry {
+    /**
+     * Type of light cone rewards
+     */
+    public static final String TYPE_LIGHT_CONE = "LightCone";
+    /**
+     * Type of material rewards
+     */
+    public static final String TYPE_MATERIAL = "Material";
+    /**
+     * Type of character rewards
+     */
+    public static final String TYPE_CHARACTER = "Character";
+
+    private final int id;
+    private final String type;
+    private final String name;
+    private final String category; // path of light cones, material type of materials
+    private final int rarity;
+    private final int itemRarity;
+    private final int requiredLevel;
+    private final int value;
+    private final double weight;
+
+    private RewardEntry(int id, String type, String name, String category, int rarity,
+                        int itemRarity, int requiredLevel, int value, double weight) {
+        if (weight <= 0) {
+            throw new IllegalArgumentException("Reward weight must be positive: " + name);
+        }
+        this.id = id;
+        this.type = type;
+        this.name = name;
+        this.category = category;
+        this.rarity = rarity;
+        this.itemRarity = itemRarity;
+        this.requiredLevel = requiredLevel;
+        this.value = value;
+        this.weight = weight;
+    }
+
+    /**
+     * Create a light cone entry
+     *
+     * @param id            the id of the entry
+     * @param name          the name of the light cone
+     * @param path          the path of the light cone
+     * @param rarity        the pull rarity (3-5)
+     * @param requiredLevel the required level of the light cone
+     * @param value         the value of the light cone
+     * @param weight        the weight in the pool
+     * @return the entry
+     */
+    public static RewardEntry lightCone(int id, String name, String path, int rarity,
+                                        int requiredLevel, int value, double weight) {
+        return new RewardEntry(id, TYPE_LIGHT_CONE, name, path, rarity, rarity, requiredLevel, value, weight);
+    }
+
+    /**
+     * Create a material entry
+     *
+     * @param id           the id of the entry
+     * @param name         the name of the material
+     * @param materialType the material type
+     * @param rarity       the pull rarity (3-5)
+     * @param itemRarity   the rarity of the material item itself (1-5)
+     * @param value        the value of the material
+     * @param weight       the weight in the pool
+     * @return the entry
+     */
+    public static RewardEntry material(int id, String name, String materialType, int rarity,
+                                       int itemRarity, int value, double weight) {
+        return new RewardEntry(id, TYPE_MATERIAL, name, materialType, rarity, itemRarity, 1, value, weight);
+    }
+
+    /**
+     * Create a character entry
+     *
+     * @param id     the id of the entry
+     * @param name   the name of the character
+     * @param rarity the rarity of the character (4-5)
+     * @param weight the weight in the pool
+     * @return the entry
+     */
+    public static RewardEntry character(int id, String name, int rarity, double weight) {
+        return new RewardEntry(id, TYPE_CHARACTER, name, "", rarity, rarity, 1, 0, weight);
+    }
+
+    /**
+     * Create a new item of this entry, light cone or material
+     *
+     * @return the new item
+     */
+    public Item createItem() {
+        if (TYPE_LIGHT_CONE.equals(type)) {
+            LightCone lc = new LightCone(name, category);
+            lc.setRequiredLevel(requiredLevel);
+            lc.setValue(value);
+            return lc;
+        }
+        if (TYPE_MATERIAL.equals(type)) {
+            return new MaterialItem(name, category, itemRarity, value);
+        }
+        throw new IllegalStateException(name + " is not an item reward");
+    }
+
+    /**
+     * Create a new character of this entry
+     *
+     * @return the new character
+     */
+    public Character createCharacter() {
+        if (!TYPE_CHARACTER.equals(type)) {
+            throw new IllegalStateException(name + " is not a character reward");
+        }
+        if (rarity >= 5) {
+            return new FiveStarCharacter(name);
+        }
+        return new FourStarCharacter(name, true);
+    }
+
+    /**
+     * Gets id.
+     *
+     * @return the id
+     */
+    public int getId() { return id; }
+
+    /**
+     * Gets type (LightCone, Material, Character).
+     *
+     * @return the type
+     */
+    public String getType() { return type; }
+
+    /**
+     * Gets name.
+     *
+     * @return the name
+     */
+    public String getName() { return name; }
+
+    /**
+     * Gets category, path for light cones and material type for materials.
+     *
+     * @return the category
+     */
+    public String getCategory() { return category; }
+
+    /**
+     * Gets pull rarity.
+     *
+     * @return the rarity
+     */
+    public int getRarity() { return rarity; }
+
+    /**
+     * Gets weight in the pool.
+     *
+     * @return the weight
+     */
+    public double getWeight() { return weight; }
+
+    /**
+     * Checks if another entry is the same reward (same id, type, name, category, rarities, level and value),
+     * the weight is not compared since it only matters inside a pool
+     *
+     * @param other the other entry
+     * @return true if both entries create the same reward
+     */
+    public boolean isSameReward(RewardEntry other) {
+        return other != null && id == other.id && rarity == other.rarity && itemRarity == other.itemRarity
+                && requiredLevel == other.requiredLevel && value == other.value
+                && Objects.equals(type, other.type) && Objects.equals(name, other.name)
+                && Objects.equals(category, other.category);
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + rarity + " Star " + type + ")";
+    }
+}
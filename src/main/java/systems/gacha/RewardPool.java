@@ -0,0 +1,134 @@
+package systems.gacha;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Represents a weighted reward pool of one rarity, sampled with Vose's alias method.
+ * Alias tables are built once in the constructor, so every draw is O(1) with a single random number
+ * no matter how many entries the pool has, and no arrays are allocated when pulling.
+ * <p>
+ * The pool is immutable after construction and can be shared by many gacha sessions and threads.
+ * </p>
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see RewardEntry
+ */
+public final class RewardPool {
+    private final String name;
+    private final RewardEntry[] entries;
+    private final double[] probability;
+    private final int[] alias;
+    private final double totalWeight;
+
+    /**
+     * Instantiates a new Reward pool and builds the alias tables
+     *
+     * @param name    the name of the pool
+     * @param entries the entries of the pool, cannot be empty
+     */
+    public RewardPool(String name, List<RewardEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("Reward pool " + name + " cannot be empty");
+        }
+        this.name = name;
+        this.entries = entries.toArray(new RewardEntry[0]);
+        int n = this.entries.length;
+        this.probability = new double[n];
+        this.alias = new int[n];
+
+        double total = 0;
+        for (RewardEntry entry : this.entries) {
+            total += entry.getWeight();
+        }
+        this.totalWeight = total;
+
+        // scale weights so the average is 1, then pair small and large columns
+        double[] scaled = new double[n];
+        Deque<Integer> small = new ArrayDeque<>();
+        Deque<Integer> large = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            scaled[i] = this.entries[i].getWeight() * n / total;
+            if (scaled[i] < 1.0) {
+                small.push(i);
+            } else {
+                large.push(i);
+            }
+        }
+        while (!small.isEmpty() && !large.isEmpty()) {
+            int less = small.pop();
+            int more = large.pop();
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small.push(more);
+            } else {
+                large.push(more);
+            }
+        }
+        // leftovers are full columns (only differ from 1 by rounding)
+        while (!large.isEmpty()) {
+            int i = large.pop();
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+        while (!small.isEmpty()) {
+            int i = small.pop();
+            probability[i] = 1.0;
+            alias[i] = i;
+        }
+    }
+
+    /**
+     * Sample an entry from the pool
+     *
+     * @param roll a random number between 0 (inclusive) and 1 (exclusive)
+     * @return the entry sampled
+     */
+    public RewardEntry sample(double roll) {
+        int n = entries.length;
+        double scaled = roll * n;
+        int column = (int) scaled;
+        if (column >= n) {
+            column = n - 1;
+        }
+        // the fraction left in the column decides between the column and its alias
+        double fraction = scaled - column;
+        return fraction < probability[column] ? entries[column] : entries[alias[column]];
+    }
+
+    /**
+     * Gets the chance of pulling an entry from this pool.
+     *
+     * @param index the index of the entry
+     * @return the chance (0-1)
+     */
+    public double getChance(int index) {
+        return entries[index].getWeight() / totalWeight;
+    }
+
+    /**
+     * Gets an entry by its index in the pool.
+     *
+     * @param index the index
+     * @return the entry
+     */
+    public RewardEntry getEntry(int index) { return entries[index]; }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return the size of the pool
+     */
+    public int size() { return entries.length; }
+
+    /**
+     * Gets name.
+     *
+     * @return the name
+     */
+    public String getName() { return name; }
+}
@@ -14,7 +14,7 @@ import java.util.stream.Collectors;
 
 /**
  * Represents the inventory system of the game.
- * Items are stored in List, the inventory have the following attributes:
+ * Items are stored in an {@link ItemStore} (ordered, indexed by id, name and stack key), the inventory have the following attributes:
  * currentWeight, maxWeight, Hashmap storing character equipments, search and sort algorithms
  * Implements {@link Sortable} and {@link Searchable}
  *
@@ -27,22 +27,24 @@ import java.util.stream.Collectors;
  * @see Item
  */
 public class Inventory implements Sortable, Searchable {
-    private List<Item> items;
+    private ItemStore items;
     private int currentWeight;
     private int maxWeight;
     private Map<Character, List<Equipment>> equippedItems;
-    private SortAlgorithms sortAlgorithms;
     private SearchAlgorithms searchAlgorithms;
+    private NameIndex<Item> nameIndex;   // built on the first search after a change
+    private int nameIndexModCount;
+    private NameTrie<Item> nameTrie;     // built on the first autocomplete or fuzzy search after a change
+    private int nameTrieModCount;
 
     /**
      * Instantiates a new Inventory with no args provided, therefore everything is as default, max weight is set to 1000
      */
     public Inventory() {
-        this.items = new ArrayList<>();
+        this.items = new ItemStore();
         this.currentWeight = 0;
         this.maxWeight = 1000; // max weight currently 1000
         this.equippedItems = new HashMap<>();
-        this.sortAlgorithms = new SortAlgorithms();
         this.searchAlgorithms = new SearchAlgorithms();
     }
 
@@ -67,6 +69,10 @@ public class Inventory implements Sortable, Searchable {
             System.out.println("Cannot add null item to inventory");
             return false;
         }
+        if (items.contains(item)) {
+            System.out.println("Item is already in the inventory: " + item.getName());
+            return false;
+        }
 
         // check weight
         int newWeight = currentWeight + item.getWeight();
@@ -76,23 +82,17 @@ public class Inventory implements Sortable, Searchable {
             return false;
         }
 
-        // if stackable, combine them together
-        if (item.isStackable()) {
-            for (Item existingItem : items) {
-                if (existingItem.isStackable() &&
-                        existingItem.getName().equals(item.getName()) &&
-                        existingItem.getClass().equals(item.getClass())) {
-
-                    // Combine item
-                    System.out.println("Combined item: " + item.getName());
-                    items.remove(existingItem);
-                    Item mergedItem = mergeItems(existingItem, item);
-                    items.add(mergedItem);
-
-                    currentWeight = calculateTotalWeight();
-                    return true;
-                }
-            }
+        // if stackable, combine them together (same class and name)
+        Item existingItem = item.isStackable() ? items.stackMatch(item) : null;
+        if (existingItem != null) {
+            // Combine item
+            System.out.println("Combined item: " + item.getName());
+            items.remove(existingItem);
+            Item mergedItem = mergeItems(existingItem, item);
+            items.add(mergedItem);
+
+            currentWeight += mergedItem.getWeight() - existingItem.getWeight();
+            return true;
         }
 
         // add new item to inventory
@@ -134,15 +134,13 @@ public class Inventory implements Sortable, Searchable {
      * @return the item removed
      */
     public Item removeItem(int itemId) {
-        for (int i = 0; i < items.size(); i++) {
-            Item item = items.get(i);
-            if (item.getId() == itemId) {
-                items.remove(i);
-                currentWeight -= item.getWeight();
-                System.out.println("Removed Item: " + item.getName());
-                System.out.println("Current Weight: " + currentWeight + "/" + maxWeight);
-                return item;
-            }
+        Item item = items.firstWithId(itemId);
+        if (item != null) {
+            items.remove(item);
+            currentWeight -= item.getWeight();
+            System.out.println("Removed Item: " + item.getName());
+            System.out.println("Current Weight: " + currentWeight + "/" + maxWeight);
+            return item;
         }
 
         System.out.println("Cannot find item ID: " + itemId);
@@ -156,15 +154,13 @@ public class Inventory implements Sortable, Searchable {
      * @return the item removed
      */
     public Item removeItem(String name) {
-        for (int i = 0; i < items.size(); i++) {
-            Item item = items.get(i);
-            if (item.getName().equals(name)) {
-                items.remove(i);
-                currentWeight -= item.getWeight();
-                System.out.println("Removed item: " + item.getName());
-                System.out.println("Current weight: " + currentWeight + "/" + maxWeight);
-                return item;
-            }
+        Item item = items.firstWithName(name);
+        if (item != null) {
+            items.remove(item);
+            currentWeight -= item.getWeight();
+            System.out.println("Removed item: " + item.getName());
+            System.out.println("Current weight: " + currentWeight + "/" + maxWeight);
+            return item;
         }
 
         System.out.println("Cannot find item with this name: " + name);
@@ -172,48 +168,50 @@ public class Inventory implements Sortable, Searchable {
     }
 
     /**
-     * Sort inventory by rarity.
+     * Show the inventory by rarity (highest first), read from the sorted view, the inventory order is kept
      */
     public void sortByRarity() {
-        System.out.println("Sort by rarity using bubble sort");
-        // create 2nd array
-        List<Item> sortedItems = new ArrayList<>(items);
-        sortedItems = sortAlgorithms.bubbleSort(sortedItems);
-        // update list
-        items = sortedItems;
-        displayInventory();
+        System.out.println("Sort by rarity");
+        displayItems(items.getSortedViews().all(SortedItemViews.RARITY));
     }
 
     /**
-     * Sort by item type.
+     * Show the inventory by item type, read from the sorted view, the inventory order is kept
      */
     public void sortByType() {
-        System.out.println("Sort by type using selection sort");
-        List<Item> sortedItems = new ArrayList<>(items);
-        sortedItems = sortAlgorithms.selectionSort(sortedItems);
-        items = sortedItems;
-        displayInventory();
+        System.out.println("Sort by type");
+        displayItems(items.getSortedViews().all(SortedItemViews.TYPE));
     }
 
     /**
-     * Sort by item name.
+     * Show the inventory by item name, read from the sorted view, the inventory order is kept
      */
     public void sortByName() {
-        System.out.println("Sort by name using insertion sort");
-        List<Item> sortedItems = new ArrayList<>(items);
-        sortedItems = sortAlgorithms.insertionSort(sortedItems);
-        items = sortedItems;
-        displayInventory();
+        System.out.println("Sort by name");
+        displayItems(items.getSortedViews().all(SortedItemViews.NAME));
+    }
+
+    /**
+     * Gets the first items of a sorted view, no sorting is done
+     *
+     * @param view  the view: RARITY, TYPE, NAME, VALUE or WEIGHT (see {@link SortedItemViews})
+     * @param count the number of items, a negative count gives every item
+     * @return the items in view order
+     */
+    public List<Item> getSortedItems(String view, int count) {
+        return items.getSortedViews().first(view, count);
     }
 
     /**
-     * Sort advanced sort using merge sort
+     * Sort the inventory by name (then rarity, highest first) with the merge sort of {@link SortEngine},
+     * unlike the sorted views this changes the inventory order
      */
     public void sortAdvanced() {
-        System.out.println("Advanced search using merge sort");
-        List<Item> sortedItems = new ArrayList<>(items);
-        sortedItems = sortAlgorithms.mergeSort(sortedItems);
-        items = sortedItems;
+        System.out.println("Advanced sort using merge sort");
+        List<Item> sortedItems = new ArrayList<>(items.asList());
+        SortEngine.sort(sortedItems, Comparator.comparing(Item::getName)
+                .thenComparing(Comparator.comparingInt(SortedItemViews::rarityOf).reversed()));
+        items.reorder(sortedItems);
         displayInventory();
     }
 
@@ -225,9 +223,7 @@ public class Inventory implements Sortable, Searchable {
      */
     public Item searchItem(String name) {
         System.out.println("Searching item: " + name);
-        List<Item> sortedList = new ArrayList<>(items);
-        sortedList = sortAlgorithms.insertionSort(sortedList);
-        Item result = searchAlgorithms.binarySearch(sortedList, name);
+        Item result = searchAlgorithms.binarySearch(getNameIndex(), name);
         if (result != null) {
             System.out.println("Found Item: " + result.getName());
             result.displayInfo();
@@ -237,6 +233,110 @@ public class Inventory implements Sortable, Searchable {
         return result;
     }
 
+    /**
+     * Search items whose name starts with the provided prefix (case sensitive), in name order
+     *
+     * @param prefix the start of the name
+     * @return the list of matched items
+     */
+    public List<Item> searchItemsByPrefix(String prefix) {
+        return getNameIndex().startingWith(prefix);
+    }
+
+    /**
+     * Search items whose name is between two names, in name order
+     *
+     * @param from the first name (inclusive), null for no lower limit
+     * @param to   the last name (exclusive), null for no upper limit
+     * @return the list of matched items
+     */
+    public List<Item> searchItemsInRange(String from, String to) {
+        return getNameIndex().range(from, to);
+    }
+
+    /**
+     * Gets the sorted name index of the items, it is rebuilt on the first call after the inventory changed
+     *
+     * @return the name index
+     */
+    public NameIndex<Item> getNameIndex() {
+        if (nameIndex == null || nameIndexModCount != items.getModCount()) {
+            nameIndex = new NameIndex<>(items.asList(), Item::getName);
+            nameIndexModCount = items.getModCount();
+        }
+        return nameIndex;
+    }
+
+    /**
+     * Autocomplete an item name, items whose name starts with the typed text (case insensitive), in name order
+     *
+     * @param prefix the typed text
+     * @param limit  the most items returned, a negative limit gives every match
+     * @return the list of matched items
+     */
+    public List<Item> autocomplete(String prefix, int limit) {
+        return getNameTrie().complete(prefix, limit);
+    }
+
+    /**
+     * Search items by a name typed with typos (case insensitive), light cones included
+     *
+     * @param name        the typed name
+     * @param maxDistance the most wrong letters (inserted, missing or replaced), up to NameTrie.MAX_DISTANCE
+     * @return the list of matched items, closest first
+     */
+    public List<Item> fuzzySearch(String name, int maxDistance) {
+        return getNameTrie().fuzzy(name, maxDistance);
+    }
+
+    /**
+     * Search light cones by a name typed with typos (case insensitive)
+     *
+     * @param name        the typed name
+     * @param maxDistance the most wrong letters (inserted, missing or replaced), up to NameTrie.MAX_DISTANCE
+     * @return the list of matched light cones, closest first
+     */
+    public List<LightCone> fuzzySearchLightCones(String name, int maxDistance) {
+        List<LightCone> result = new ArrayList<>();
+        for (Item item : fuzzySearch(name, maxDistance)) {
+            if (item instanceof LightCone) {
+                result.add((LightCone) item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Search an item with item name, when there is no exact match the closest name with at most
+     * NameTrie.MAX_DISTANCE typos is used
+     *
+     * @param name the name of the item
+     * @return the result item
+     */
+    public Item searchItemTolerant(String name) {
+        Item result = searchAlgorithms.binarySearch(getNameIndex(), name);
+        if (result == null) {
+            result = searchAlgorithms.fuzzySearch(getNameTrie(), name);
+            if (result != null) {
+                System.out.println("Did you mean: " + result.getName() + "?");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the name trie of the items, it is rebuilt on the first call after the inventory changed
+     *
+     * @return the name trie
+     */
+    public NameTrie<Item> getNameTrie() {
+        if (nameTrie == null || nameTrieModCount != items.getModCount()) {
+            nameTrie = new NameTrie<>(items.asList(), Item::getName);
+            nameTrieModCount = items.getModCount();
+        }
+        return nameTrie;
+    }
+
     /**
      * Search for list of items by provided type
      *
@@ -245,10 +345,10 @@ public class Inventory implements Sortable, Searchable {
      */
     public List<Item> searchItemByType(String type) {
         System.out.println("Search by type: " + type);
-        List<Item> result = searchAlgorithms.sequentialSearch(items, type);
+        List<Item> result = items.getSortedViews().ofType(type);
         if  (result != null) {
             if (!result.isEmpty()) {
-                System.out.println("Found " + result.size() + " " + type + "items:");
+                System.out.println("Found " + result.size() + " " + type + " items:");
                 for (Item item : result) {
                     System.out.println("  - " + item.getName());
                 }
@@ -270,7 +370,7 @@ public class Inventory implements Sortable, Searchable {
      */
     public Item recursiveSearch(String criteria) {
         System.out.println("Recursive Searching for: " + criteria);
-        Item result = searchAlgorithms.recursiveSearch(items, 0, criteria);
+        Item result = searchAlgorithms.recursiveSearch(items.asList(), 0, criteria);
         if (result != null) {
             System.out.println("Found items: " + result.getName());
         } else {
@@ -385,12 +485,7 @@ public class Inventory implements Sortable, Searchable {
      * @return the boolean indicating whether the item is in the inventory
      */
     public boolean containsItem(String name) {
-        for (Item item : items) {
-            if (item.getName().equals(name)) {
-                return true;
-            }
-        }
-        return false;
+        return items.firstWithName(name) != null;
     }
 
     /**
@@ -402,14 +497,18 @@ public class Inventory implements Sortable, Searchable {
         return items.size();
     }
 
-    private int calculateTotalWeight() {
-        return items.stream().mapToInt(Item::getWeight).sum();
-    }
-
     /**
      * Display all items in the inventory and all stats about the inventory
      */
     public void displayInventory() {
+        displayItems(items.asList());
+    }
+
+    /**
+     * Display the stats about the inventory and the items in the provided order
+     * @param list the items to display
+     */
+    private void displayItems(List<Item> list) {
         System.out.println("=== Inventory Information ===");
         System.out.println("Items count: " + items.size());
         System.out.println("Current weight: " + currentWeight + "/" + maxWeight);
@@ -421,30 +520,15 @@ public class Inventory implements Sortable, Searchable {
         }
 
         System.out.println("\nItem list:");
-        for (int i = 0; i < items.size(); i++) {
-            Item item = items.get(i);
-            String rarity = "";
-            if (item instanceof MaterialItem) {
-                MaterialItem mat = (MaterialItem) item;
-                // rarity = "★".repeat(mat.getRarity());
-                StringBuilder starBuilder = new StringBuilder();
-                for (int j = 0; j < mat.getRarity(); j++) {
-                    starBuilder.append("★");
-                }
-                rarity = starBuilder.toString();
-            } else if (item instanceof Equipment) {
-                Equipment eq = (Equipment) item;
-                if (eq instanceof LightCone) {
-                    LightCone lc = (LightCone) eq;
-                    rarity = lc.getRequiredLevel() >= 60 ? "★★★★★" : "★★★★";
-                } else {
-                    rarity = "★★★";
-                }
-            } else {
-                rarity = "★★";
+        for (int i = 0; i < list.size(); i++) {
+            Item item = list.get(i);
+            // rarity = "★".repeat(stars);
+            StringBuilder starBuilder = new StringBuilder();
+            for (int j = 0; j < SortedItemViews.rarityOf(item); j++) {
+                starBuilder.append("★");
             }
-            i += 1;
-            System.out.println(" " + i + " " + rarity + " " + item.getName() + " (Weight: " + item.getWeight() + "Value: " + item.getValue()+ ")");
+            String rarity = starBuilder.toString();
+            System.out.println(" " + (i + 1) + " " + rarity + " " + item.getName() + " (Weight: " + item.getWeight() + "Value: " + item.getValue()+ ")");
         }
     }
 
@@ -493,11 +577,11 @@ public class Inventory implements Sortable, Searchable {
      * @return the arraylist of items
      */
     public List<Item> getAllItems() {
-        return new ArrayList<>(items);
+        return new ArrayList<>(items.asList());
     }
 
     /**
-     * Gets item with a specific index
+     * Gets item with a specific index, O(log n) also right after items were added or removed
      *
      * @param index the index to check
      * @return the item on that index
@@ -530,7 +614,7 @@ public class Inventory implements Sortable, Searchable {
     }
 
     /**
-     * Sort the inventory by item name
+     * Show the inventory by item name
      */
     @Override
     public void sort() {
@@ -620,7 +704,7 @@ public class Inventory implements Sortable, Searchable {
      * @return the total value
      */
     public int calculateTotalValue() {
-        return items.stream().mapToInt(Item::getValue).sum();
+        return items.asList().stream().mapToInt(Item::getValue).sum();
     }
 
     /**
@@ -636,7 +720,7 @@ public class Inventory implements Sortable, Searchable {
         // Use `Collectors.groupingBy` to group by `itemType`.
         // For each group, use `Collectors.counting()` to count the number of items.
         // Return a `Map<String, Long>`, where the key is the item type and the value is the count of that type.
-        Map<String, Long> typeCount = items.stream()
+        Map<String, Long> typeCount = items.asList().stream()
                 .collect(Collectors.groupingBy(Item::getItemType, Collectors.counting()));
 
         //Iterate through each key-value pair in the typeCount Map.
@@ -0,0 +1,461 @@
+package systems.inventory;
+
+import entities.items.Item;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * Ordered item storage of the {@link Inventory} with hash indexes.
+ * Items are kept in a linked list in inventory order, every entry is also linked in a chain per item id,
+ * per item name and per stack key (class + name, stackable items only), so finding the first item with an id,
+ * a name or a stack match, and removing any item, are O(1) no matter how many items there are.
+ * Ids and names are indexed with their value when the item was added, rename an item only outside the inventory.
+ * Every entry also has a slot in an array in inventory order, removed entries leave an empty slot and a
+ * Fenwick tree counts the items before each slot, so {@link #get(int)} finds the item at a position in O(log n)
+ * even right after a change. The array is compacted when it is full or mostly empty slots.
+ * {@link #asList()} uses an array copy that is rebuilt after the store changes,
+ * sorted orders are kept in {@link SortedItemViews}
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see Inventory
+ */
+public class ItemStore implements Iterable<Item> {
+    private static final int BY_ID = 0;
+    private static final int BY_NAME = 1;
+    private static final int BY_STACK = 2;
+    private static final int INDEXES = 3;
+    private static final int MIN_SLOTS = 16;
+
+    private Node head;
+    private Node tail;
+    private int size;
+    private final Map<Item, Node> nodes = new IdentityHashMap<>();
+    private final List<Map<Object, Chain>> indexes = new ArrayList<>(INDEXES);
+    private Item[] ordered;     // array copy for asList, null after a change
+    private Node[] slots = new Node[MIN_SLOTS];     // entries in inventory order, null for removed ones
+    private int used;           // slots used, removed ones included
+    private int[] counts = new int[MIN_SLOTS + 1];  // Fenwick tree of the items in the slots, 1 based
+    private final SortedItemViews views = new SortedItemViews();
+    private int modCount;       // changes on every add, remove and clear
+
+    /**
+     * Instantiates a new empty item store
+     */
+    public ItemStore() {
+        for (int k = 0; k < INDEXES; k++) {
+            indexes.add(new HashMap<>());
+        }
+    }
+
+    /**
+     * Add an item at the end
+     *
+     * @param item the item to add
+     * @return false if the item is null or already in the store
+     */
+    public boolean add(Item item) {
+        if (item == null || nodes.containsKey(item)) {
+            return false;
+        }
+        if (used == slots.length) {
+            compact(Math.max(MIN_SLOTS, size * 2));
+        }
+        Node node = new Node(item);
+        node.keys[BY_ID] = item.getId();
+        node.keys[BY_NAME] = item.getName();
+        node.keys[BY_STACK] = item.isStackable() ? new StackKey(item) : null;
+
+        node.prev = tail;
+        if (tail == null) {
+            head = node;
+        } else {
+            tail.next = node;
+        }
+        tail = node;
+        for (int k = 0; k < INDEXES; k++) {
+            if (node.keys[k] != null) {
+                link(k, node);
+            }
+        }
+        nodes.put(item, node);
+        node.slot = used++;
+        slots[node.slot] = node;
+        count(node.slot, 1);
+        views.add(item);
+        size++;
+        modCount++;
+        ordered = null;
+        return true;
+    }
+
+    /**
+     * Remove an item
+     *
+     * @param item the item to remove
+     * @return true if the item was in the store
+     */
+    public boolean remove(Item item) {
+        Node node = item == null ? null : nodes.remove(item);
+        if (node == null) {
+            return false;
+        }
+        if (node.prev == null) {
+            head = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next == null) {
+            tail = node.prev;
+        } else {
+            node.next.prev = node.prev;
+        }
+        for (int k = 0; k < INDEXES; k++) {
+            if (node.keys[k] != null) {
+                unlink(k, node);
+            }
+        }
+        slots[node.slot] = null;
+        count(node.slot, -1);
+        views.remove(item);
+        size--;
+        modCount++;
+        ordered = null;
+        if (used - size > MIN_SLOTS && used - size > size) {
+            compact(Math.max(MIN_SLOTS, size * 2));
+        }
+        return true;
+    }
+
+    /**
+     * Gets the first item (in inventory order) with an id
+     *
+     * @param id the item id
+     * @return the item, null if none
+     */
+    public Item firstWithId(int id) {
+        return first(BY_ID, id);
+    }
+
+    /**
+     * Gets the first item (in inventory order) with a name
+     *
+     * @param name the item name (case sensitive)
+     * @return the item, null if none
+     */
+    public Item firstWithName(String name) {
+        return first(BY_NAME, name);
+    }
+
+    /**
+     * Gets the first stackable item (in inventory order) of the same class and name as the provided item
+     *
+     * @param item the item to stack
+     * @return the item to merge with, null if none
+     */
+    public Item stackMatch(Item item) {
+        Chain chain = indexes.get(BY_STACK).get(new StackKey(item));
+        if (chain == null) {
+            return null;
+        }
+        for (Node n = chain.first; n != null; n = n.nextIn[BY_STACK]) {
+            if (n.item.isStackable()) {
+                return n.item;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the sorted views of the items, updated on every add and remove
+     *
+     * @return the sorted views
+     */
+    public SortedItemViews getSortedViews() {
+        return views;
+    }
+
+    /**
+     * Gets the modification count, it changes on every add, remove and clear,
+     * indexes built from the store are out of date when it changed
+     *
+     * @return the modification count
+     */
+    public int getModCount() {
+        return modCount;
+    }
+
+    /**
+     * Check if the store contains an item
+     *
+     * @param item the item
+     * @return true if the item is in the store
+     */
+    public boolean contains(Item item) {
+        return item != null && nodes.containsKey(item);
+    }
+
+    /**
+     * Gets the number of items
+     *
+     * @return the size
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check if the store is empty
+     *
+     * @return true if there are no items
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets an item by position, O(log n)
+     *
+     * @param index the position in inventory order
+     * @return the item
+     */
+    public Item get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        // walk down the Fenwick tree to the last slot with index items before it
+        int slot = 0;
+        int left = index + 1;
+        for (int step = Integer.highestOneBit(slots.length); step > 0; step >>= 1) {
+            int next = slot + step;
+            if (next <= slots.length && counts[next] < left) {
+                slot = next;
+                left -= counts[next];
+            }
+        }
+        return slots[slot].item;
+    }
+
+    /**
+     * Gets a read only list of the items in inventory order, it does not follow later changes of the store
+     *
+     * @return the items
+     */
+    public List<Item> asList() {
+        final Item[] array = toArray();
+        return new AbstractList<Item>() {
+            @Override
+            public Item get(int index) {
+                return array[index];
+            }
+
+            @Override
+            public int size() {
+                return array.length;
+            }
+        };
+    }
+
+    /**
+     * Replace the order of the items, e.g. after sorting, the list must hold the same items
+     *
+     * @param order the items in their new order
+     */
+    public void reorder(List<Item> order) {
+        if (order.size() != size) {
+            throw new IllegalArgumentException("Order has " + order.size() + " items, store has " + size);
+        }
+        List<Item> copy = new ArrayList<>(order);
+        clear();
+        for (Item item : copy) {
+            if (!add(item)) {
+                throw new IllegalArgumentException("Item repeated or null in order: " + item);
+            }
+        }
+    }
+
+    /**
+     * Remove every item
+     */
+    public void clear() {
+        head = null;
+        tail = null;
+        size = 0;
+        nodes.clear();
+        for (int k = 0; k < INDEXES; k++) {
+            indexes.get(k).clear();
+        }
+        slots = new Node[MIN_SLOTS];
+        counts = new int[MIN_SLOTS + 1];
+        used = 0;
+        views.clear();
+        modCount++;
+        ordered = null;
+    }
+
+    @Override
+    public Iterator<Item> iterator() {
+        return new Iterator<Item>() {
+            private Node next = head;
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Item next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Item item = next.item;
+                next = next.next;
+                return item;
+            }
+        };
+    }
+
+    // helpers
+
+    private Item first(int index, Object key) {
+        Chain chain = indexes.get(index).get(key);
+        return chain == null ? null : chain.first.item;
+    }
+
+    private Item[] toArray() {
+        if (ordered == null) {
+            Item[] array = new Item[size];
+            int i = 0;
+            for (Node n = head; n != null; n = n.next) {
+                array[i++] = n.item;
+            }
+            ordered = array;
+        }
+        return ordered;
+    }
+
+    // add to the item count of a slot
+    private void count(int slot, int delta) {
+        for (int i = slot + 1; i < counts.length; i += i & -i) {
+            counts[i] += delta;
+        }
+    }
+
+    // move the entries to the first slots of a new array and rebuild the counts in O(n)
+    private void compact(int capacity) {
+        Node[] compacted = new Node[capacity];
+        int[] rebuilt = new int[capacity + 1];
+        int n = 0;
+        for (Node node = head; node != null; node = node.next) {
+            node.slot = n;
+            compacted[n++] = node;
+        }
+        for (int i = 1; i <= capacity; i++) {
+            if (i <= n) {
+                rebuilt[i]++;
+            }
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                rebuilt[parent] += rebuilt[i];
+            }
+        }
+        slots = compacted;
+        counts = rebuilt;
+        used = n;
+    }
+
+    // new items go at the end of the store so they go at the end of their chains too
+    private void link(int index, Node node) {
+        Chain chain = indexes.get(index).get(node.keys[index]);
+        if (chain == null) {
+            chain = new Chain();
+            indexes.get(index).put(node.keys[index], chain);
+            chain.first = node;
+        } else {
+            chain.last.nextIn[index] = node;
+            node.prevIn[index] = chain.last;
+        }
+        chain.last = node;
+    }
+
+    private void unlink(int index, Node node) {
+        Chain chain = indexes.get(index).get(node.keys[index]);
+        Node prev = node.prevIn[index];
+        Node next = node.nextIn[index];
+        if (prev == null) {
+            chain.first = next;
+        } else {
+            prev.nextIn[index] = next;
+        }
+        if (next == null) {
+            chain.last = prev;
+        } else {
+            next.prevIn[index] = prev;
+        }
+        if (chain.first == null) {
+            indexes.get(index).remove(node.keys[index]);
+        }
+        node.prevIn[index] = null;
+        node.nextIn[index] = null;
+    }
+
+    /**
+     * Entry of an item, linked in the store order and in one chain per index
+     */
+    private static final class Node {
+        private final Item item;
+        private final Object[] keys = new Object[INDEXES];
+        private Node prev;
+        private Node next;
+        private final Node[] prevIn = new Node[INDEXES];
+        private final Node[] nextIn = new Node[INDEXES];
+        private int slot;
+
+        private Node(Item item) {
+            this.item = item;
+        }
+    }
+
+    /**
+     * Items of one key in store order
+     */
+    private static final class Chain {
+        private Node first;
+        private Node last;
+    }
+
+    /**
+     * Stack key of an item, items stack when their class and name are the same
+     */
+    private static final class StackKey {
+        private final Class<?> type;
+        private final String name;
+
+        private StackKey(Item item) {
+            this.type = item.getClass();
+            this.name = item.getName();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof StackKey)) {
+                return false;
+            }
+            StackKey other = (StackKey) o;
+            return type == other.type && Objects.equals(name, other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + Objects.hashCode(name);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package systems.inventory;
+
+import entities.equipment.Equipment;
+import entities.equipment.LightCone;
+import entities.items.Item;
+import entities.items.MaterialItem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Sorted views of the items of an {@link ItemStore}, kept up to date when items are added or removed.
+ * Every view is a balanced tree (TreeSet, red-black) of the items ordered by its key, items with the same key
+ * stay in the order they were added. Adding or removing an item is O(log n) per view and the first k items
+ * of any view are read in O(log n + k), so listing a sorted inventory never sorts.
+ * Keys are read when the item is added, change the value or weight of an item only outside the inventory.
+ * Views: RARITY (highest first), TYPE, NAME, VALUE and WEIGHT (lowest first)
+ *
+ * @author Shaoyang Chen
+ * @version 1.0.0
+ * @see ItemStore
+ * @see Inventory
+ */
+public class SortedItemViews {
+    /**
+     * View by rarity, highest first
+     */
+    public static final String RARITY = "RARITY";
+    /**
+     * View by item type
+     */
+    public static final String TYPE = "TYPE";
+    /**
+     * View by name
+     */
+    public static final String NAME = "NAME";
+    /**
+     * View by value
+     */
+    public static final String VALUE = "VALUE";
+    /**
+     * View by weight
+     */
+    public static final String WEIGHT = "WEIGHT";
+
+    private static final String[] VIEWS = {RARITY, TYPE, NAME, VALUE, WEIGHT};
+
+    private final List<TreeSet<Entry>> trees = new ArrayList<>();
+    private final Map<Item, Entry> entries = new IdentityHashMap<>();
+    private long nextSequence;
+
+    /**
+     * Instantiates new empty sorted views
+     */
+    public SortedItemViews() {
+        trees.add(new TreeSet<>(Comparator.<Entry>comparingInt(e -> -e.rarity).thenComparingLong(e -> e.sequence)));
+        Comparator<String> text = Comparator.nullsFirst(Comparator.naturalOrder());
+        trees.add(new TreeSet<>(Comparator.<Entry, String>comparing(e -> e.type, text).thenComparingLong(e -> e.sequence)));
+        trees.add(new TreeSet<>(Comparator.<Entry, String>comparing(e -> e.name, text).thenComparingLong(e -> e.sequence)));
+        trees.add(new TreeSet<>(Comparator.<Entry>comparingInt(e -> e.value).thenComparingLong(e -> e.sequence)));
+        trees.add(new TreeSet<>(Comparator.<Entry>comparingInt(e -> e.weight).thenComparingLong(e -> e.sequence)));
+    }
+
+    /**
+     * Add an item to every view
+     *
+     * @param item the item to add
+     */
+    public void add(Item item) {
+        if (item == null || entries.containsKey(item)) {
+            return;
+        }
+        Entry entry = new Entry(item, nextSequence++);
+        entries.put(item, entry);
+        for (TreeSet<Entry> tree : trees) {
+            tree.add(entry);
+        }
+    }
+
+    /**
+     * Remove an item from every view
+     *
+     * @param item the item to remove
+     */
+    public void remove(Item item) {
+        Entry entry = entries.remove(item);
+        if (entry == null) {
+            return;
+        }
+        for (TreeSet<Entry> tree : trees) {
+            tree.remove(entry);
+        }
+    }
+
+    /**
+     * Remove every item
+     */
+    public void clear() {
+        entries.clear();
+        for (TreeSet<Entry> tree : trees) {
+            tree.clear();
+        }
+        nextSequence = 0;
+    }
+
+    /**
+     * Gets the first items of a view
+     *
+     * @param view  RARITY, TYPE, NAME, VALUE or WEIGHT
+     * @param count the number of items, a negative count gives every item
+     * @return the items in view order
+     */
+    public List<Item> first(String view, int count) {
+        TreeSet<Entry> tree = tree(view);
+        int n = count < 0 ? tree.size() : Math.min(count, tree.size());
+        List<Item> result = new ArrayList<>(n);
+        Iterator<Entry> it = tree.iterator();
+        while (result.size() < n && it.hasNext()) {
+            result.add(it.next().item);
+        }
+        return result;
+    }
+
+    /**
+     * Gets every item of a view
+     *
+     * @param view RARITY, TYPE, NAME, VALUE or WEIGHT
+     * @return the items in view order
+     */
+    public List<Item> all(String view) {
+        return first(view, -1);
+    }
+
+    /**
+     * Gets the items of one item type in the order they were added, O(log n + k) for k items
+     *
+     * @param type the item type (case sensitive)
+     * @return the items of the type, empty if none
+     */
+    public List<Item> ofType(String type) {
+        TreeSet<Entry> tree = tree(TYPE);
+        List<Item> result = new ArrayList<>();
+        for (Entry e : tree.subSet(new Entry(type, Long.MIN_VALUE), true, new Entry(type, Long.MAX_VALUE), true)) {
+            result.add(e.item);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of items
+     *
+     * @return the size
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the rarity of an item, the number of stars shown in the inventory:
+     * material rarity, 5 for light cones of level 60 and more, 4 for other light cones, 3 for other equipment, 2 otherwise
+     *
+     * @param item the item
+     * @return the rarity
+     */
+    public static int rarityOf(Item item) {
+        if (item instanceof MaterialItem) {
+            return ((MaterialItem) item).getRarity();
+        }
+        if (item instanceof LightCone) {
+            return ((LightCone) item).getRequiredLevel() >= 60 ? 5 : 4;
+        }
+        if (item instanceof Equipment) {
+            return 3;
+        }
+        return 2;
+    }
+
+    // helpers
+
+    private TreeSet<Entry> tree(String view) {
+        for (int i = 0; i < VIEWS.length; i++) {
+            if (VIEWS[i].equalsIgnoreCase(view)) {
+                return trees.get(i);
+            }
+        }
+        throw new IllegalArgumentException("Unknown sorted view: " + view);
+    }
+
+    /**
+     * Keys of an item when it was added
+     */
+    private static final class Entry {
+        private final Item item;
+        private final long sequence;
+        private final int rarity;
+        private final String type;
+        private final String name;
+        private final int value;
+        private final int weight;
+
+        private Entry(Item item, long sequence) {
+            this.item = item;
+            this.sequence = sequence;
+            this.rarity = rarityOf(item);
+            this.type = item.getItemType();
+            this.name = item.getName();
+            this.value = item.getValue();
+            this.weight = item.getWeight();
+        }
+
+        // search bound in the TYPE view
+        private Entry(String type, long sequence) {
+            this.item = null;
+            this.sequence = sequence;
+            this.rarity = 0;
+            this.type = type;
+            this.name = null;
+            this.value = 0;
+            this.weight = 0;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package util.Algorithms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Sorted name index for binary search, built once and searched many times.
+ * The names are sorted once with {@link SortEngine} (stable, so equal names keep the order of the source),
+ * every lookup after that is a binary search: exact name, prefix and name range queries are O(log n + k)
+ * for k results. The index does not follow changes of the source, build a new one after the source changes
+ *
+ * @param <T> the type of the indexed elements
+ * @author Rajeeve Ravi
+ * @version 1.0
+ */
+public class NameIndex<T> {
+    private final List<T> elements;
+    private final String[] names;
+
+    /**
+     * Build an index, elements with a null name are left out
+     *
+     * @param source the elements to index
+     * @param nameOf the name of an element
+     */
+    public NameIndex(Collection<? extends T> source, Function<? super T, String> nameOf) {
+        List<Entry<T>> entries = new ArrayList<>(source.size());
+        for (T element : source) {
+            String name = element == null ? null : nameOf.apply(element);
+            if (name != null) {
+                entries.add(new Entry<>(name, element));
+            }
+        }
+        SortEngine.sort(entries, (a, b) -> a.name.compareTo(b.name));
+        this.elements = new ArrayList<>(entries.size());
+        this.names = new String[entries.size()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = entries.get(i).name;
+            elements.add(entries.get(i).element);
+        }
+    }
+
+    /**
+     * Find the first element with a name
+     *
+     * @param name the name (case sensitive)
+     * @return the element, null if not found
+     */
+    public T find(String name) {
+        if (name == null) {
+            return null;
+        }
+        int i = lowerBound(name);
+        return i < names.length && names[i].equals(name) ? elements.get(i) : null;
+    }
+
+    /**
+     * Find every element with a name
+     *
+     * @param name the name (case sensitive)
+     * @return the elements, empty if not found
+     */
+    public List<T> findAll(String name) {
+        if (name == null) {
+            return Collections.emptyList();
+        }
+        int from = lowerBound(name);
+        int to = from;
+        while (to < names.length && names[to].equals(name)) {
+            to++;
+        }
+        return slice(from, to);
+    }
+
+    /**
+     * Find every element whose name starts with a prefix, in name order
+     *
+     * @param prefix the prefix (case sensitive)
+     * @return the elements, empty if none
+     */
+    public List<T> startingWith(String prefix) {
+        if (prefix == null) {
+            return Collections.emptyList();
+        }
+        int from = lowerBound(prefix);
+        int to = from;
+        while (to < names.length && names[to].startsWith(prefix)) {
+            to++;
+        }
+        return slice(from, to);
+    }
+
+    /**
+     * Find every element whose name is in a range, in name order
+     *
+     * @param from the first name (inclusive), null for no lower limit
+     * @param to   the last name (exclusive), null for no upper limit
+     * @return the elements, empty if none
+     */
+    public List<T> range(String from, String to) {
+        int lo = from == null ? 0 : lowerBound(from);
+        int hi = to == null ? names.length : lowerBound(to);
+        return slice(lo, Math.max(lo, hi));
+    }
+
+    /**
+     * Gets the number of indexed elements
+     *
+     * @return the size
+     */
+    public int size() {
+        return names.length;
+    }
+
+    // helpers
+
+    /**
+     * First position whose name is not smaller than the key
+     */
+    private int lowerBound(String key) {
+        int left = 0;
+        int right = names.length;
+        while (left < right) {
+            int mid = (left + right) >>> 1;
+            if (names[mid].compareTo(key) < 0) {
+                left = mid + 1;
+            } else {
+                right = mid;
+            }
+        }
+        return left;
+    }
+
+    private List<T> slice(int from, int to) {
+        return Collections.unmodifiableList(elements.subList(from, to));
+    }
+
+    private static final class Entry<T> {
+        private final String name;
+        private final T element;
+
+        private Entry(String name, T element) {
+            this.name = name;
+            this.element = element;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package util.Algorithms;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Trie of names for autocomplete and typo tolerant search, built once and searched many times.
+ * Names are compared in lower case. The sorted names are put in a trie stored as arrays in depth first order,
+ * so the names under a trie node are one range of the sorted names and the nodes under it are one range of nodes:
+ * <ul>
+ * <li>{@link #complete(String, int)}: walks the prefix down the trie, O(prefix length * alphabet + k) for k results</li>
+ * <li>{@link #fuzzy(String, int)}: Levenshtein distance search, one row of the edit distance table per trie node
+ * (shared by every name with that prefix), a subtree is skipped as soon as its row is over the max distance,
+ * so only the nodes close to the query are visited</li>
+ * </ul>
+ * The trie does not follow changes of the source, build a new one after the source changes
+ *
+ * @param <T> the type of the indexed elements
+ * @author Rajeeve Ravi
+ * @version 1.0
+ */
+public class NameTrie<T> {
+    /**
+     * Largest max distance the fuzzy search is meant for, larger distances work but visit most of the trie
+     */
+    public static final int MAX_DISTANCE = 2;
+
+    private final List<T> elements;     // in name order
+    private final String[] keys;        // lower case names, sorted
+    // nodes in depth first order, node 0 is the root
+    private char[] label;
+    private int[] depth;
+    private int[] end;                  // first node after the subtree
+    private int[] from;                 // first name under the node
+    private int[] to;                   // first name after the node
+    private int[] exact;                // names ending at the node, they are the first ones under it
+    private int nodes;
+
+    /**
+     * Build a trie, elements with a null name are left out
+     *
+     * @param source the elements to index
+     * @param nameOf the name of an element
+     */
+    public NameTrie(Collection<? extends T> source, Function<? super T, String> nameOf) {
+        List<Entry<T>> entries = new ArrayList<>(source.size());
+        for (T element : source) {
+            String name = element == null ? null : nameOf.apply(element);
+            if (name != null) {
+                entries.add(new Entry<>(name.toLowerCase(Locale.ROOT), element));
+            }
+        }
+        SortEngine.sort(entries, (a, b) -> a.key.compareTo(b.key));
+        this.keys = new String[entries.size()];
+        this.elements = new ArrayList<>(entries.size());
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = entries.get(i).key;
+            elements.add(entries.get(i).element);
+        }
+        build();
+    }
+
+    /**
+     * Find the elements whose name starts with a prefix (case insensitive), in name order
+     *
+     * @param prefix the start of the name
+     * @param limit  the most elements returned, a negative limit gives every match
+     * @return the elements, empty if none
+     */
+    public List<T> complete(String prefix, int limit) {
+        if (prefix == null) {
+            return Collections.emptyList();
+        }
+        String key = prefix.toLowerCase(Locale.ROOT);
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            node = child(node, key.charAt(i));
+        }
+        if (node < 0) {
+            return Collections.emptyList();
+        }
+        int hi = limit < 0 ? to[node] : (int) Math.min(to[node], (long) from[node] + limit);
+        return Collections.unmodifiableList(elements.subList(from[node], hi));
+    }
+
+    /**
+     * Find the elements whose name is at most maxDistance edits (insert, delete or replace a letter)
+     * from the query, case insensitive
+     *
+     * @param query       the name typed by the player
+     * @param maxDistance the most edits, see MAX_DISTANCE
+     * @return the elements, closest first then in name order
+     */
+    public List<T> fuzzy(String query, int maxDistance) {
+        return fuzzy(query, maxDistance, -1);
+    }
+
+    /**
+     * Find the closest elements whose name is at most maxDistance edits from the query, case insensitive
+     *
+     * @param query       the name typed by the player
+     * @param maxDistance the most edits, see MAX_DISTANCE
+     * @param limit       the most elements returned, a negative limit gives every match
+     * @return the elements, closest first then in name order
+     */
+    public List<T> fuzzy(String query, int maxDistance, int limit) {
+        if (query == null || maxDistance < 0 || limit == 0) {
+            return Collections.emptyList();
+        }
+        String key = query.toLowerCase(Locale.ROOT);
+        int m = key.length();
+        // matches[d] holds the nodes whose names are exactly d edits away
+        List<List<Integer>> matches = new ArrayList<>(maxDistance + 1);
+        for (int d = 0; d <= maxDistance; d++) {
+            matches.add(new ArrayList<>());
+        }
+        // rows[k] is the edit distance row of the node on the current path at depth k
+        int[][] rows = new int[1][];
+        rows[0] = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            rows[0][j] = j;
+        }
+        if (m <= maxDistance && exact[0] > 0) {
+            matches.get(m).add(0);
+        }
+        int node = 1;
+        while (node < nodes) {
+            int k = depth[node];
+            if (k == rows.length) {
+                rows = Arrays.copyOf(rows, rows.length * 2);
+            }
+            if (rows[k] == null) {
+                rows[k] = new int[m + 1];
+            }
+            int[] prev = rows[k - 1];
+            int[] row = rows[k];
+            char c = label[node];
+            row[0] = k;
+            int best = k;
+            for (int j = 1; j <= m; j++) {
+                int cost = key.charAt(j - 1) == c ? 0 : 1;
+                int v = Math.min(Math.min(row[j - 1], prev[j]) + 1, prev[j - 1] + cost);
+                row[j] = v;
+                best = Math.min(best, v);
+            }
+            if (best > maxDistance) {
+                node = end[node];   // every name below is even further
+                continue;
+            }
+            if (row[m] <= maxDistance && exact[node] > 0) {
+                matches.get(row[m]).add(node);
+            }
+            node++;
+        }
+        List<T> result = new ArrayList<>();
+        for (List<Integer> atDistance : matches) {
+            for (int n : atDistance) {
+                for (int i = from[n]; i < from[n] + exact[n]; i++) {
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                    result.add(elements.get(i));
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Edit distance (Levenshtein) between two names, case insensitive
+     *
+     * @param a the first name
+     * @param b the second name
+     * @return the number of inserted, deleted or replaced letters
+     */
+    public static int distance(String a, String b) {
+        String x = a.toLowerCase(Locale.ROOT);
+        String y = b.toLowerCase(Locale.ROOT);
+        int[] prev = new int[y.length() + 1];
+        int[] row = new int[y.length() + 1];
+        for (int j = 0; j <= y.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= x.length(); i++) {
+            row[0] = i;
+            for (int j = 1; j <= y.length(); j++) {
+                int cost = x.charAt(i - 1) == y.charAt(j - 1) ? 0 : 1;
+                row[j] = Math.min(Math.min(row[j - 1], prev[j]) + 1, prev[j - 1] + cost);
+            }
+            int[] t = prev;
+            prev = row;
+            row = t;
+        }
+        return prev[y.length()];
+    }
+
+    /**
+     * Gets the number of indexed elements
+     *
+     * @return the size
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    /**
+     * Gets the number of trie nodes, the root included
+     *
+     * @return the node count
+     */
+    public int nodeCount() {
+        return nodes;
+    }
+
+    // helpers
+
+    /**
+     * Build the node arrays from the sorted keys, a key shares the nodes of its common prefix with the key before it
+     */
+    private void build() {
+        int capacity = 16;
+        label = new char[capacity];
+        depth = new int[capacity];
+        end = new int[capacity];
+        from = new int[capacity];
+        to = new int[capacity];
+        exact = new int[capacity];
+        nodes = 1;
+        // path[k] is the open node at depth k
+        int[] path = new int[16];
+        int open = 0;   // depth of the deepest open node
+        String last = "";
+        for (int i = 0; i < keys.length; i++) {
+            String key = keys[i];
+            int common = 0;
+            int max = Math.min(key.length(), last.length());
+            while (common < max && key.charAt(common) == last.charAt(common)) {
+                common++;
+            }
+            while (open > common) {
+                close(path[open--], i);
+            }
+            for (int k = common; k < key.length(); k++) {
+                if (nodes == label.length) {
+                    grow();
+                }
+                if (open + 1 == path.length) {
+                    path = Arrays.copyOf(path, path.length * 2);
+                }
+                int n = nodes++;
+                label[n] = key.charAt(k);
+                depth[n] = k + 1;
+                from[n] = i;
+                path[++open] = n;
+            }
+            exact[path[open]]++;
+            last = key;
+        }
+        while (open > 0) {
+            close(path[open--], keys.length);
+        }
+        end[0] = nodes;
+        to[0] = keys.length;
+        label = Arrays.copyOf(label, nodes);
+        depth = Arrays.copyOf(depth, nodes);
+        end = Arrays.copyOf(end, nodes);
+        from = Arrays.copyOf(from, nodes);
+        to = Arrays.copyOf(to, nodes);
+        exact = Arrays.copyOf(exact, nodes);
+    }
+
+    private void close(int node, int nameEnd) {
+        end[node] = nodes;
+        to[node] = nameEnd;
+    }
+
+    private void grow() {
+        int capacity = label.length * 2;
+        label = Arrays.copyOf(label, capacity);
+        depth = Arrays.copyOf(depth, capacity);
+        end = Arrays.copyOf(end, capacity);
+        from = Arrays.copyOf(from, capacity);
+        to = Arrays.copyOf(to, capacity);
+        exact = Arrays.copyOf(exact, capacity);
+    }
+
+    /**
+     * Child of a node with a letter, children follow their parent in letter order
+     *
+     * @return the child, -1 if none
+     */
+    private int child(int node, char c) {
+        for (int n = node + 1; n < end[node]; n = end[n]) {
+            if (label[n] == c) {
+                return n;
+            }
+            if (label[n] > c) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static final class Entry<T> {
+        private final String key;
+        private final T element;
+
+        private Entry(String key, T element) {
+            this.key = key;
+            this.element = element;
+        }
+    }
+}
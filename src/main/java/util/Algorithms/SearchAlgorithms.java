@@ -1,7 +1,6 @@
 package util.Algorithms;
 import entities.items.Item;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -19,6 +18,8 @@ public class SearchAlgorithms {
 
     /**
      *  The binary search with a provided item name
+     *  The list is sorted on every call (O(n log n)), use {@link #binarySearch(NameIndex, String)}
+     *  with an index built once to search the same list many times
      *
      * @param items the items for list of items to searching
      * @param name  the name for name of items
@@ -28,23 +29,36 @@ public class SearchAlgorithms {
         if (items == null || items.isEmpty() || name == null) {
             return null;
         }
-        List<Item> sortedItems = new ArrayList<>(items);
-        sortedItems.sort(Comparator.comparing(Item::getName));
-        int let = 0;
-        int rig = sortedItems.size() - 1;
-        while (let <= rig) {
-            int m = let + (rig - let) / 2;
-            int compare = sortedItems.get(m).getName().compareTo(name);
-            if (compare == 0) {
-                return sortedItems.get(m);
-            } else if (compare > 0) {
-                rig = m - 1;
-            }
-            else {
-                let = m + 1;
-            }
+        return binarySearch(new NameIndex<>(items, Item::getName), name);
+    }
+
+    /**
+     *  The binary search with a prebuilt name index, O(log n)
+     *
+     * @param index the name index of the items
+     * @param name  the name for name of items
+     * @return the first item with the name, null if it doesn't exist
+     */
+    public Item binarySearch(NameIndex<Item> index, String name) {
+        if (index == null || name == null) {
+            return null;
+        }
+        return index.find(name);
+    }
+
+    /**
+     *  The closest item to a name typed with typos, O(nodes near the name) with a prebuilt trie
+     *
+     * @param index the name trie of the items
+     * @param name  the name for name of items, case insensitive
+     * @return the closest item at most NameTrie.MAX_DISTANCE edits away, null if it doesn't exist
+     */
+    public Item fuzzySearch(NameTrie<Item> index, String name) {
+        if (index == null || name == null) {
+            return null;
         }
-        return null;
+        List<Item> found = index.fuzzy(name, NameTrie.MAX_DISTANCE, 1);
+        return found.isEmpty() ? null : found.get(0);
     }
 
     /**
@@ -52,42 +66,52 @@ public class SearchAlgorithms {
      *
      * @param items    the items list of items to searching
      * @param criteria the criteria
-     * @return the list
+     * @return the list of items with the name, null if none
      */
     public List<Item> sequentialSearch(List<Item> items, String criteria) {
         if (items == null || items.isEmpty() || criteria == null) {
             return null;
         }
+        List<Item> found = new ArrayList<>();
         for (Item item : items) {
-            if (item.getName().equals(criteria)) {
-                return items;
+            if (criteria.equals(item.getName())) {
+                found.add(item);
             }
         }
-        return null;
+        return found.isEmpty() ? null : found;
     }
 
     /**
      * Recursive search with a provided item name and start index
+     * The range is split in halves so the recursion is O(log n) deep and large inventories can't overflow the stack
      *
      * @param items    the items
      * @param index    the index
      * @param criteria the criteria
-     * @return the item
+     * @return the first item from the index with the name
      */
     public Item recursiveSearch(List<Item> items, int index, String criteria)
     {
         if (items == null || criteria == null) {
             return null;
         }
-        if (index >= items.size()) {
+        return recursiveSearch(items, Math.max(index, 0), items.size(), criteria);
+    }
+
+    /**
+     * Recursive search of items[from, to)
+     */
+    private Item recursiveSearch(List<Item> items, int from, int to, String criteria) {
+        if (from >= to) {
             return null;
         }
-        Item item = items.get(index);
-        if (item != null && item.getName() != null
-                && item.getName().equals(criteria)) {
-            return item;
+        if (to - from == 1) {
+            Item item = items.get(from);
+            return item != null && criteria.equals(item.getName()) ? item : null;
         }
-        return recursiveSearch(items, index + 1, criteria);
+        int mid = (from + to) >>> 1;
+        Item left = recursiveSearch(items, from, mid, criteria);
+        return left != null ? left : recursiveSearch(items, mid, to, criteria);
     }
 
 }
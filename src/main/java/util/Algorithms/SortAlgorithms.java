@@ -142,12 +142,12 @@ public class SortAlgorithms {
             } else {
                 sortedItems.add(left.get(i++));
             }
-            while (j < right.size()) {
-                sortedItems.add(right.get(j++));
-            }
-            while (i < left.size()) {
-                sortedItems.add(left.get(i++));
-            }
+        }
+        while (i < left.size()) {
+            sortedItems.add(left.get(i++));
+        }
+        while (j < right.size()) {
+            sortedItems.add(right.get(j++));
         }
         return sortedItems;
     }
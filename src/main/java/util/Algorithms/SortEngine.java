@@ -0,0 +1,292 @@
+package util.Algorithms;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Generic sort engine, every sort is stable and takes any comparator.
+ * <ul>
+ * <li>{@link #mergeSort(Object[], Comparator)}: TimSort style merge sort, finds the runs already in order
+ * (reverses descending ones), makes short runs MIN_RUN long with binary insertion sort, then merges runs
+ * bottom up and skips a merge when the two runs are already in order. O(n) on sorted input, O(n log n) worst case</li>
+ * <li>{@link #parallelSort(Object[], Comparator, ForkJoinPool)}: splits the array on a fork join pool down to
+ * PARALLEL_GRANULARITY, sorts the pieces with the merge sort, sibling pieces are merged by their parent task</li>
+ * <li>{@link #sortByKey(List, ToIntFunction)}: counting sort for small int keys (rarity, level), O(n + range)</li>
+ * </ul>
+ * {@link #sort(List, Comparator)} picks between the merge sort and the parallel sort with the cutovers below,
+ * they are the usual TimSort and Arrays.parallelSort values, check them again before changing them
+ *
+ * @author Rajeeve Ravi
+ * @version 1.0
+ */
+public final class SortEngine {
+    /**
+     * Runs shorter than this are made longer with binary insertion sort (cheaper than merging for short runs)
+     */
+    public static final int MIN_RUN = 32;
+    /**
+     * Largest piece sorted by one fork join task, lists under 2 pieces are sorted on the calling thread
+     */
+    public static final int PARALLEL_GRANULARITY = 1 << 13;
+    /**
+     * Largest key range the counting sort takes, bigger ranges use the merge sort on the key
+     */
+    public static final int COUNTING_MAX_RANGE = 1 << 16;
+
+    private SortEngine() {}
+
+    /**
+     * Sort a list, the parallel sort is used for lists of 2 pieces or more when the common pool has more than one thread
+     *
+     * @param <T>        the element type
+     * @param list       the list to sort
+     * @param comparator the order
+     */
+    public static <T> void sort(List<T> list, Comparator<? super T> comparator) {
+        if (list == null || list.size() < 2) {
+            return;
+        }
+        Object[] a = list.toArray();
+        if (a.length >= 2 * PARALLEL_GRANULARITY && ForkJoinPool.getCommonPoolParallelism() > 1) {
+            parallelSort(a, cast(comparator), ForkJoinPool.commonPool());
+        } else {
+            mergeSort(a, cast(comparator));
+        }
+        writeBack(list, a);
+    }
+
+    /**
+     * Stable merge sort of an array on the calling thread
+     *
+     * @param <T>        the element type
+     * @param a          the array to sort
+     * @param comparator the order
+     */
+    public static <T> void mergeSort(T[] a, Comparator<? super T> comparator) {
+        if (a.length < 2) {
+            return;
+        }
+        Object[] work = new Object[a.length];
+        mergeSort(a, 0, a.length, cast(comparator), work);
+    }
+
+    /**
+     * Stable parallel merge sort of an array
+     *
+     * @param <T>        the element type
+     * @param a          the array to sort
+     * @param comparator the order
+     * @param pool       the pool running the tasks
+     */
+    public static <T> void parallelSort(T[] a, Comparator<? super T> comparator, ForkJoinPool pool) {
+        if (a.length < 2 * PARALLEL_GRANULARITY || pool.getParallelism() <= 1) {
+            mergeSort(a, comparator);
+            return;
+        }
+        pool.invoke(new SortTask(a, new Object[a.length], 0, a.length, cast(comparator)));
+    }
+
+    /**
+     * Stable counting sort of a list by an int key (lowest first), falls back to the merge sort
+     * when the key range is bigger than COUNTING_MAX_RANGE or much bigger than the list
+     *
+     * @param <T>  the element type
+     * @param list the list to sort
+     * @param key  the key of an element, negate it for highest first
+     */
+    public static <T> void sortByKey(List<T> list, ToIntFunction<? super T> key) {
+        if (list == null || list.size() < 2) {
+            return;
+        }
+        int n = list.size();
+        Object[] a = list.toArray();
+        int[] keys = new int[n];
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            @SuppressWarnings("unchecked")
+            int k = key.applyAsInt((T) a[i]);
+            keys[i] = k;
+            min = Math.min(min, k);
+            max = Math.max(max, k);
+        }
+        long range = (long) max - min + 1;
+        if (range > COUNTING_MAX_RANGE || range > 4L * n + 256) {
+            sort(list, Comparator.comparingInt(key));
+            return;
+        }
+        int[] start = new int[(int) range + 1];
+        for (int i = 0; i < n; i++) {
+            start[keys[i] - min + 1]++;
+        }
+        for (int k = 1; k < start.length; k++) {
+            start[k] += start[k - 1];
+        }
+        Object[] sorted = new Object[n];
+        for (int i = 0; i < n; i++) {
+            sorted[start[keys[i] - min]++] = a[i];
+        }
+        writeBack(list, sorted);
+    }
+
+    // helpers
+
+    @SuppressWarnings("unchecked")
+    private static Comparator<Object> cast(Comparator<?> comparator) {
+        return (Comparator<Object>) comparator;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void writeBack(List<T> list, Object[] a) {
+        ListIterator<T> it = list.listIterator();
+        for (Object element : a) {
+            it.next();
+            it.set((T) element);
+        }
+    }
+
+    /**
+     * Merge sort of a[lo, hi), work[lo, hi) is used as the merge buffer
+     */
+    private static void mergeSort(Object[] a, int lo, int hi, Comparator<Object> c, Object[] work) {
+        int n = hi - lo;
+        if (n < 2) {
+            return;
+        }
+        if (n < MIN_RUN) {
+            binaryInsertionSort(a, lo, hi, findRun(a, lo, hi, c), c);
+            return;
+        }
+        // run boundaries, every run but the last is at least MIN_RUN long
+        int[] bounds = new int[n / MIN_RUN + 2];
+        int runs = 0;
+        for (int i = lo; i < hi; ) {
+            int runEnd = findRun(a, i, hi, c);
+            if (runEnd - i < MIN_RUN) {
+                int forced = Math.min(hi, i + MIN_RUN);
+                binaryInsertionSort(a, i, forced, runEnd, c);
+                runEnd = forced;
+            }
+            bounds[runs++] = i;
+            i = runEnd;
+        }
+        bounds[runs] = hi;
+        // merge neighbour runs until one is left
+        while (runs > 1) {
+            int merged = 0;
+            for (int r = 0; r < runs; r += 2) {
+                if (r + 1 < runs) {
+                    merge(a, bounds[r], bounds[r + 1], bounds[r + 2], c, work);
+                }
+                bounds[merged++] = bounds[r];
+            }
+            bounds[merged] = hi;
+            runs = merged;
+        }
+    }
+
+    /**
+     * End of the run starting at lo, a strictly descending run is reversed so it is ascending
+     */
+    private static int findRun(Object[] a, int lo, int hi, Comparator<Object> c) {
+        int end = lo + 1;
+        if (end == hi) {
+            return hi;
+        }
+        if (c.compare(a[end++], a[lo]) < 0) {
+            while (end < hi && c.compare(a[end], a[end - 1]) < 0) {
+                end++;
+            }
+            for (int i = lo, j = end - 1; i < j; i++, j--) {
+                Object t = a[i];
+                a[i] = a[j];
+                a[j] = t;
+            }
+        } else {
+            while (end < hi && c.compare(a[end], a[end - 1]) >= 0) {
+                end++;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Insertion sort of a[lo, hi) where a[lo, sorted) is already sorted, equal elements go after (stable)
+     */
+    private static void binaryInsertionSort(Object[] a, int lo, int hi, int sorted, Comparator<Object> c) {
+        for (int i = sorted; i < hi; i++) {
+            Object pivot = a[i];
+            int left = lo;
+            int right = i;
+            while (left < right) {
+                int mid = (left + right) >>> 1;
+                if (c.compare(pivot, a[mid]) < 0) {
+                    right = mid;
+                } else {
+                    left = mid + 1;
+                }
+            }
+            System.arraycopy(a, left, a, left + 1, i - left);
+            a[left] = pivot;
+        }
+    }
+
+    /**
+     * Merge the sorted a[lo, mid) and a[mid, hi), the left run is copied to work[lo, mid)
+     */
+    private static void merge(Object[] a, int lo, int mid, int hi, Comparator<Object> c, Object[] work) {
+        if (c.compare(a[mid - 1], a[mid]) <= 0) {
+            return; // already in order
+        }
+        System.arraycopy(a, lo, work, lo, mid - lo);
+        int i = lo;
+        int j = mid;
+        int k = lo;
+        while (i < mid && j < hi) {
+            if (c.compare(a[j], work[i]) < 0) {
+                a[k++] = a[j++];
+            } else {
+                a[k++] = work[i++];
+            }
+        }
+        // what is left of the right run is already in place
+        while (i < mid) {
+            a[k++] = work[i++];
+        }
+    }
+
+    /**
+     * Sorts a piece, forks both halves while the piece is bigger than the granularity, then merges them
+     */
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final Object[] a;
+        private final Object[] work;
+        private final int lo;
+        private final int hi;
+        private final Comparator<Object> c;
+
+        private SortTask(Object[] a, Object[] work, int lo, int hi, Comparator<Object> c) {
+            this.a = a;
+            this.work = work;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= PARALLEL_GRANULARITY) {
+                mergeSort(a, lo, hi, c, work);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask(a, work, lo, mid, c), new SortTask(a, work, mid, hi, c));
+            merge(a, lo, mid, hi, c, work);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package util.random;
+
+/**
+ * The source of random numbers for gacha, battles and drops.
+ * Systems take a random source instead of creating their own {@link java.util.Random} or calling Math.random(),
+ * so simulations and replays can be made deterministic by passing a seeded source, and parallel runs can give
+ * every worker its own stream with {@link #split()}.
+ * <p>
+ * A seeded source is not thread safe, every thread should use its own (split) source.
+ * {@link #threadLocal()} is safe to share, it uses the random generator of the calling thread.
+ * </p>
+ *
+ * @author Rajeeve Ravi
+ * @version 1.0
+ */
+public interface RandomSource {
+    /**
+     * Next random double between 0 (inclusive) and 1 (exclusive)
+     *
+     * @return the random double
+     */
+    double nextDouble();
+
+    /**
+     * Next random int between 0 (inclusive) and bound (exclusive)
+     *
+     * @param bound the bound, must be positive
+     * @return the random int
+     */
+    int nextInt(int bound);
+
+    /**
+     * Next random boolean
+     *
+     * @return the random boolean
+     */
+    boolean nextBoolean();
+
+    /**
+     * Create a new independent source from this one, used to give every worker its own stream
+     *
+     * @return the new source
+     */
+    RandomSource split();
+
+    /**
+     * Create a seeded source, the same seed always gives the same numbers
+     *
+     * @param seed the seed
+     * @return the seeded source
+     */
+    static RandomSource seeded(long seed) {
+        return new SplittableRandomSource(seed);
+    }
+
+    /**
+     * Gets the shared source backed by the random generator of the calling thread (not seeded),
+     * used by default when no source is provided
+     *
+     * @return the thread local source
+     */
+    static RandomSource threadLocal() {
+        return ThreadLocalRandomSource.INSTANCE;
+    }
+}
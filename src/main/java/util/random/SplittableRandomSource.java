@@ -0,0 +1,47 @@
+package util.random;
+
+import java.util.SplittableRandom;
+
+/**
+ * Seeded random source backed by {@link SplittableRandom}.
+ * Not thread safe, use {@link #split()} to get a source for another thread.
+ *
+ * @author Rajeeve Ravi
+ * @version 1.0
+ */
+public class SplittableRandomSource implements RandomSource {
+    private final SplittableRandom random;
+
+    /**
+     * Constructor of a seeded random source
+     *
+     * @param seed the seed
+     */
+    public SplittableRandomSource(long seed) {
+        this(new SplittableRandom(seed));
+    }
+
+    private SplittableRandomSource(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplittableRandomSource(random.split());
+    }
+}
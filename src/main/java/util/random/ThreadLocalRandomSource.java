@@ -0,0 +1,39 @@
+package util.random;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Random source using the {@link ThreadLocalRandom} of the calling thread.
+ * Safe to share between threads and never contended, but cannot be seeded.
+ *
+ * @author Rajeeve Ravi
+ * @version 1.0
+ */
+final class ThreadLocalRandomSource implements RandomSource {
+    /**
+     * The shared instance
+     */
+    static final ThreadLocalRandomSource INSTANCE = new ThreadLocalRandomSource();
+
+    private ThreadLocalRandomSource() {}
+
+    @Override
+    public double nextDouble() {
+        return ThreadLocalRandom.current().nextDouble();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return ThreadLocalRandom.current().nextInt(bound);
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return ThreadLocalRandom.current().nextBoolean();
+    }
+
+    @Override
+    public RandomSource split() {
+        return new SplittableRandomSource(ThreadLocalRandom.current().nextLong());
+    }
+}
@@ -0,0 +1,245 @@
+package systems.gacha;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+
+/**
+ * Tests of the pull journal file format: reopening, torn and corrupted tails, commit interval and bad headers
+ */
+public class PullJournalTest {
+    private static final int HEADER_BYTES = 16;
+
+    @TempDir
+    Path dir;
+
+    private String path() {
+        return dir.resolve("pulls.journal").toString();
+    }
+
+    /**
+     * Pull i of the test journals: item pulls, every 7th pull is a character pull,
+     * every 5th item pull is a batch pull without a reward
+     */
+    private static void appendPull(PullJournal journal, int i) throws IOException {
+        int banner = i % 7 == 0 ? GachaSystem.CHARACTER_BANNER_ID : GachaSystem.ITEM_BANNER_ID;
+        int rarity = i % 10 == 9 ? 4 : (i % 50 == 49 ? 5 : 3);
+        int rewardId = banner == GachaSystem.ITEM_BANNER_ID && i % 5 == 0 ? PullJournal.NO_REWARD : 3000 + i;
+        journal.append(banner, rarity, rewardId, i % 90, i % 10);
+    }
+
+    private static int writeRecords(String path, int n) throws IOException {
+        try (PullJournal journal = new PullJournal(path)) {
+            for (int i = 0; i < n; i++) {
+                appendPull(journal, i);
+            }
+            return journal.getRecordCount();
+        }
+    }
+
+    private static int expectedWithReward(int n, int banner) {
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            int b = i % 7 == 0 ? GachaSystem.CHARACTER_BANNER_ID : GachaSystem.ITEM_BANNER_ID;
+            if (b == banner && !(b == GachaSystem.ITEM_BANNER_ID && i % 5 == 0)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void reopenReadsEveryRecord() throws IOException {
+        int n = 200;
+        assertEquals(n, writeRecords(path(), n));
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(n, journal.getRecordCount());
+            PullHistoryLog items = new PullHistoryLog();
+            assertEquals(expectedWithReward(n, GachaSystem.ITEM_BANNER_ID),
+                    journal.readInto(GachaSystem.ITEM_BANNER_ID, items));
+            PullHistoryLog characters = new PullHistoryLog();
+            assertEquals(expectedWithReward(n, GachaSystem.CHARACTER_BANNER_ID),
+                    journal.readInto(GachaSystem.CHARACTER_BANNER_ID, characters));
+            // first item pull with a reward is pull 1
+            assertEquals(3001, items.getRewardId(0));
+            assertEquals(1, items.getFiveStarPity(0));
+            assertEquals(1, items.getFourStarPity(0));
+            assertEquals(GachaSystem.ITEM_BANNER_ID, items.getBannerId(0));
+            // first character pull is pull 0
+            assertEquals(3000, characters.getRewardId(0));
+            assertEquals(GachaSystem.CHARACTER_BANNER_ID, characters.getBannerId(0));
+        }
+    }
+
+    @Test
+    public void appendAfterReopenContinuesTheSequence() throws IOException {
+        writeRecords(path(), 10);
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(11, journal.append(GachaSystem.ITEM_BANNER_ID, 3, 3999, 1, 1));
+        }
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(11, journal.getRecordCount());
+        }
+    }
+
+    @Test
+    public void recoverPityUsesTheLastRecordOfTheBanner() throws IOException {
+        try (PullJournal journal = new PullJournal(path())) {
+            journal.append(GachaSystem.ITEM_BANNER_ID, 3, 3001, 12, 3);
+            journal.append(GachaSystem.CHARACTER_BANNER_ID, 4, 14001, 40, 9);
+            journal.append(GachaSystem.ITEM_BANNER_ID, 3, PullJournal.NO_REWARD, 13, 4);
+        }
+        try (PullJournal journal = new PullJournal(path())) {
+            PitySystem items = new PitySystem();
+            assertTrue(journal.recoverPity(GachaSystem.ITEM_BANNER_ID, items));
+            // batch pulls have no reward but still hold the pity
+            assertEquals(13, items.getFiveStarPity());
+            assertEquals(4, items.getFourStarPity());
+
+            PitySystem characters = new PitySystem();
+            assertTrue(journal.recoverPity(GachaSystem.CHARACTER_BANNER_ID, characters));
+            // the 4 star pulled resets the 4 star pity
+            assertEquals(40, characters.getFiveStarPity());
+            assertEquals(0, characters.getFourStarPity());
+
+            assertFalse(journal.recoverPity(42, new PitySystem()));
+        }
+    }
+
+    @Test
+    public void recoverPityAfterFiveStarResetsFiveStarPity() throws IOException {
+        try (PullJournal journal = new PullJournal(path())) {
+            journal.append(GachaSystem.ITEM_BANNER_ID, 5, 5001, 77, 6);
+        }
+        try (PullJournal journal = new PullJournal(path())) {
+            PitySystem pity = new PitySystem();
+            assertTrue(journal.recoverPity(GachaSystem.ITEM_BANNER_ID, pity));
+            assertEquals(0, pity.getFiveStarPity());
+            assertEquals(6, pity.getFourStarPity());
+        }
+    }
+
+    @Test
+    public void tornTailIsDropped() throws IOException {
+        int n = 50;
+        writeRecords(path(), n);
+        // cut the last record in the middle, like a crash during the write
+        try (RandomAccessFile raf = new RandomAccessFile(path(), "rw")) {
+            raf.setLength(HEADER_BYTES + (long) (n - 1) * PullJournal.RECORD_BYTES + 7);
+        }
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(n - 1, journal.getRecordCount());
+            assertEquals(expectedWithReward(n - 1, GachaSystem.ITEM_BANNER_ID),
+                    journal.readInto(GachaSystem.ITEM_BANNER_ID, new PullHistoryLog()));
+            // the journal keeps going after the torn record
+            assertEquals(n, journal.append(GachaSystem.ITEM_BANNER_ID, 3, 3999, 1, 1));
+        }
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(n, journal.getRecordCount());
+        }
+    }
+
+    @Test
+    public void corruptedTailIsClearedAndOverwritten() throws IOException {
+        int n = 30;
+        writeRecords(path(), n);
+        long checksumOffset = HEADER_BYTES + (long) (n - 1) * PullJournal.RECORD_BYTES + 12;
+        try (RandomAccessFile raf = new RandomAccessFile(path(), "rw")) {
+            raf.seek(checksumOffset);
+            int checksum = raf.readInt();
+            raf.seek(checksumOffset);
+            raf.writeInt(~checksum);
+        }
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(n - 1, journal.getRecordCount());
+            PitySystem pity = new PitySystem();
+            assertTrue(journal.recoverPity(GachaSystem.ITEM_BANNER_ID, pity));
+        }
+        // the broken record was cleared when the journal was opened
+        try (RandomAccessFile raf = new RandomAccessFile(path(), "r")) {
+            raf.seek(checksumOffset - 12);
+            assertEquals(0, raf.readInt());
+        }
+    }
+
+    @Test
+    public void corruptedMiddleRecordDropsEverythingAfterIt() throws IOException {
+        writeRecords(path(), 40);
+        try (RandomAccessFile raf = new RandomAccessFile(path(), "rw")) {
+            // reward id of record 20, the checksum no longer matches
+            raf.seek(HEADER_BYTES + 20L * PullJournal.RECORD_BYTES + 4);
+            raf.writeInt(123456);
+        }
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(20, journal.getRecordCount());
+        }
+    }
+
+    @Test
+    public void commitIntervalBoundary() throws IOException {
+        int interval = 8;
+        for (int n = interval - 1; n <= interval + 1; n++) {
+            String path = dir.resolve("interval" + n + ".journal").toString();
+            PullJournal writer = new PullJournal(path, interval);
+            try {
+                for (int i = 0; i < n; i++) {
+                    appendPull(writer, i);
+                }
+                // records before and after the group commit are all readable by a second reader
+                try (PullJournal reader = new PullJournal(path, interval)) {
+                    assertEquals(n, reader.getRecordCount());
+                }
+            } finally {
+                writer.close();
+            }
+            try (PullJournal journal = new PullJournal(path, interval)) {
+                assertEquals(n, journal.getRecordCount());
+            }
+        }
+    }
+
+    @Test
+    public void growsPastTheFirstMappedRegion() throws IOException {
+        int n = 65536 + 3;
+        assertEquals(n, writeRecords(path(), n));
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(n, journal.getRecordCount());
+        }
+    }
+
+    @Test
+    public void badMagicIsRejected() throws IOException {
+        writeHeader(0x12345678, 1);
+        assertThrows(IOException.class, () -> new PullJournal(path()));
+    }
+
+    @Test
+    public void badVersionIsRejected() throws IOException {
+        writeHeader(0x504A4E4C, 99);
+        assertThrows(IOException.class, () -> new PullJournal(path()));
+    }
+
+    @Test
+    public void emptyFileStartsANewJournal() throws IOException {
+        new FileOutputStream(path()).close();
+        try (PullJournal journal = new PullJournal(path())) {
+            assertEquals(0, journal.getRecordCount());
+            assertEquals(1, journal.append(GachaSystem.ITEM_BANNER_ID, 3, 3001, 1, 1));
+        }
+    }
+
+    private void writeHeader(int magic, int version) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(path()))) {
+            out.writeInt(magic);
+            out.writeInt(version);
+            out.write(new byte[HEADER_BYTES - 8 + 4 * PullJournal.RECORD_BYTES]);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package util.Algorithms;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Tests of the name trie against a brute force scan of the names with {@link NameTrie#distance(String, String)}
+ * and String.startsWith, over names with duplicates, prefixes of other names, the empty name and mixed case
+ */
+public class NameTrieTest {
+    private static final String[] NAMES = {
+            "Himeko", "himeko", "HIMEKO", "Him", "Hime", "Welt", "Welt Yang", "Bronya", "Bronya", "Bron", "Seele",
+            "Gepard", "Jingyuan", "Jing", "", "", "a", "ab", "abc", "abd", "b", "Night of Galactic Railway",
+            "Morning Ritual", "Memories of the Past", "Credit", "Adventure Log", "Traveler's Guide", "Refined Aether",
+            "Kafka", "kafKa", "Luka", "Lynx", null
+    };
+
+    /**
+     * Element with a name and its position in the source, duplicates are different elements
+     */
+    private static final class Named {
+        private final String name;
+        private final int position;
+
+        private Named(String name, int position) {
+            this.name = name;
+            this.position = position;
+        }
+
+        @Override
+        public String toString() {
+            return name + "@" + position;
+        }
+    }
+
+    private static List<Named> source(String[] names) {
+        List<Named> source = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            source.add(new Named(names[i], i));
+        }
+        return source;
+    }
+
+    private static String key(Named e) {
+        return e.name.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Elements in name order, equal names in source order
+     */
+    private static List<Named> inNameOrder(List<Named> source) {
+        List<Named> named = new ArrayList<>();
+        for (Named e : source) {
+            if (e.name != null) {
+                named.add(e);
+            }
+        }
+        named.sort(Comparator.comparing(NameTrieTest::key));
+        return named;
+    }
+
+    private static List<Named> bruteFuzzy(List<Named> source, String query, int maxDistance, int limit) {
+        List<Named> matches = new ArrayList<>();
+        for (Named e : inNameOrder(source)) {
+            if (NameTrie.distance(e.name, query) <= maxDistance) {
+                matches.add(e);
+            }
+        }
+        // stable, so name order is kept between equal distances
+        matches.sort(Comparator.comparingInt(e -> NameTrie.distance(e.name, query)));
+        return limit < 0 ? matches : matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private static List<Named> bruteComplete(List<Named> source, String prefix, int limit) {
+        String lower = prefix.toLowerCase(Locale.ROOT);
+        List<Named> matches = new ArrayList<>();
+        for (Named e : inNameOrder(source)) {
+            if (key(e).startsWith(lower)) {
+                matches.add(e);
+            }
+        }
+        return limit < 0 ? matches : matches.subList(0, Math.min(limit, matches.size()));
+    }
+
+    private static void assertSameElements(List<Named> expected, List<Named> actual, String what) {
+        assertEquals(expected.size(), actual.size(), what + " expected " + expected + " but was " + actual);
+        for (int i = 0; i < expected.size(); i++) {
+            assertSame(expected.get(i), actual.get(i), what + " expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * Queries: every name, the names in other cases, names with random edits, random strings and the empty query
+     */
+    private static List<String> queries(Random random, String[] names) {
+        List<String> queries = new ArrayList<>();
+        queries.add("");
+        for (String name : names) {
+            if (name == null) {
+                continue;
+            }
+            queries.add(name);
+            queries.add(name.toUpperCase(Locale.ROOT));
+            for (int edits = 1; edits <= 3; edits++) {
+                queries.add(edit(random, name, edits));
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            queries.add(randomWord(random, random.nextInt(8)));
+        }
+        return queries;
+    }
+
+    private static String edit(Random random, String name, int edits) {
+        StringBuilder sb = new StringBuilder(name);
+        for (int i = 0; i < edits; i++) {
+            int op = random.nextInt(3);
+            int at = random.nextInt(sb.length() + 1);
+            char c = (char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(6));
+            if (op == 0 || sb.length() == 0) {
+                sb.insert(at, c);
+            } else if (at == sb.length()) {
+                sb.deleteCharAt(at - 1);
+            } else if (op == 1) {
+                sb.deleteCharAt(at);
+            } else {
+                sb.setCharAt(at, c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String randomWord(Random random, int length) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ((random.nextBoolean() ? 'a' : 'A') + random.nextInt(6)));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void fuzzyMatchesBruteForce() {
+        List<Named> source = source(NAMES);
+        NameTrie<Named> trie = new NameTrie<>(source, e -> e.name);
+        for (String query : queries(new Random(1), NAMES)) {
+            for (int d = 0; d <= NameTrie.MAX_DISTANCE + 1; d++) {
+                assertSameElements(bruteFuzzy(source, query, d, -1), trie.fuzzy(query, d),
+                        "fuzzy(\"" + query + "\", " + d + ")");
+            }
+        }
+    }
+
+    @Test
+    public void fuzzyWithLimitMatchesBruteForce() {
+        List<Named> source = source(NAMES);
+        NameTrie<Named> trie = new NameTrie<>(source, e -> e.name);
+        for (String query : queries(new Random(2), NAMES)) {
+            for (int d = 0; d <= NameTrie.MAX_DISTANCE; d++) {
+                for (int limit : new int[]{0, 1, 2, 3, 5, 100}) {
+                    assertSameElements(bruteFuzzy(source, query, d, limit), trie.fuzzy(query, d, limit),
+                            "fuzzy(\"" + query + "\", " + d + ", " + limit + ")");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fuzzyOnRandomWordsMatchesBruteForce() {
+        Random random = new Random(3);
+        String[] names = new String[300];
+        for (int i = 0; i < names.length; i++) {
+            // short words over a small alphabet, so many names share prefixes and repeat
+            names[i] = randomWord(random, random.nextInt(6));
+        }
+        List<Named> source = source(names);
+        NameTrie<Named> trie = new NameTrie<>(source, e -> e.name);
+        assertEquals(names.length, trie.size());
+        for (String query : queries(random, Arrays.copyOf(names, 40))) {
+            for (int d = 0; d <= NameTrie.MAX_DISTANCE; d++) {
+                assertSameElements(bruteFuzzy(source, query, d, -1), trie.fuzzy(query, d),
+                        "fuzzy(\"" + query + "\", " + d + ")");
+            }
+        }
+    }
+
+    @Test
+    public void completeMatchesBruteForce() {
+        List<Named> source = source(NAMES);
+        NameTrie<Named> trie = new NameTrie<>(source, e -> e.name);
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add("");
+        for (String name : NAMES) {
+            if (name == null) {
+                continue;
+            }
+            for (int i = 0; i <= name.length(); i++) {
+                prefixes.add(name.substring(0, i));
+                prefixes.add(name.substring(0, i).toUpperCase(Locale.ROOT));
+            }
+            prefixes.add(name + "x");
+        }
+        prefixes.add("zzz");
+        for (String prefix : prefixes) {
+            for (int limit : new int[]{-1, 0, 1, 2, 3, 4, 100}) {
+                assertSameElements(bruteComplete(source, prefix, limit), trie.complete(prefix, limit),
+                        "complete(\"" + prefix + "\", " + limit + ")");
+            }
+        }
+    }
+
+    @Test
+    public void nullNamesAndQueriesAreIgnored() {
+        List<Named> source = source(NAMES);
+        NameTrie<Named> trie = new NameTrie<>(source, e -> e.name);
+        assertEquals(NAMES.length - 1, trie.size());
+        assertEquals(Collections.emptyList(), trie.complete(null, -1));
+        assertEquals(Collections.emptyList(), trie.fuzzy(null, 2));
+        assertEquals(Collections.emptyList(), trie.fuzzy("himeko", -1));
+    }
+
+    @Test
+    public void emptyTrie() {
+        NameTrie<Named> trie = new NameTrie<>(Collections.<Named>emptyList(), e -> e.name);
+        assertEquals(0, trie.size());
+        assertEquals(1, trie.nodeCount());
+        assertTrue(trie.complete("", -1).isEmpty());
+        assertTrue(trie.fuzzy("", 2).isEmpty());
+    }
+
+    @Test
+    public void distanceIsCaseInsensitiveLevenshtein() {
+        assertEquals(0, NameTrie.distance("Himeko", "hIMEKO"));
+        assertEquals(3, NameTrie.distance("kitten", "sitting"));
+        assertEquals(4, NameTrie.distance("", "Luka"));
+        assertEquals(1, NameTrie.distance("Welt", "Wel"));
+        assertEquals(2, NameTrie.distance("ab", "ba"));
+    }
+}
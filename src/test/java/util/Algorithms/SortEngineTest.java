@@ -0,0 +1,192 @@
+package util.Algorithms;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Randomized tests of the sort engine against List.sort (stable), the same elements must come out
+ * in the same order, so equal keys must keep their input order
+ */
+public class SortEngineTest {
+    private static final Comparator<Element> BY_KEY = Comparator.comparingInt(e -> e.key);
+
+    /**
+     * Element with a sort key and its position in the input, elements are compared by key only
+     */
+    private static final class Element {
+        private final int key;
+        private final int position;
+
+        private Element(int key, int position) {
+            this.key = key;
+            this.position = position;
+        }
+
+        @Override
+        public String toString() {
+            return key + "@" + position;
+        }
+    }
+
+    /**
+     * Input of n elements with keys in [min, min + range), in one of the shapes the merge sort treats differently
+     */
+    private static List<Element> input(Random random, int n, int min, long range, int shape) {
+        List<Element> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int key;
+            switch (shape) {
+                case 1:     // ascending
+                    key = (int) (min + (range * i) / Math.max(1, n));
+                    break;
+                case 2:     // descending
+                    key = (int) (min + (range * (n - i)) / Math.max(1, n));
+                    break;
+                case 3:     // runs of both directions
+                    int run = i / 50;
+                    int inRun = run % 2 == 0 ? i % 50 : 50 - i % 50;
+                    key = (int) (min + Math.floorMod((long) run * 7919 + inRun, range));
+                    break;
+                case 4:     // all equal
+                    key = min;
+                    break;
+                default:    // random
+                    key = (int) (min + (long) (random.nextDouble() * range));
+                    break;
+            }
+            list.add(new Element(key, i));
+        }
+        return list;
+    }
+
+    private static List<Element> expected(List<Element> input) {
+        List<Element> sorted = new ArrayList<>(input);
+        sorted.sort(BY_KEY);
+        return sorted;
+    }
+
+    private static void assertSameOrder(List<Element> expected, List<Element> actual, String what) {
+        assertEquals(expected.size(), actual.size(), what);
+        for (int i = 0; i < expected.size(); i++) {
+            if (expected.get(i) != actual.get(i)) {
+                fail(what + ": position " + i + " expected " + expected.get(i) + " but was " + actual.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void mergeSortMatchesListSort() {
+        Random random = new Random(1);
+        int[] sizes = {0, 1, 2, 3, SortEngine.MIN_RUN - 1, SortEngine.MIN_RUN, SortEngine.MIN_RUN + 1, 100, 257, 1000,
+                5000};
+        for (int n : sizes) {
+            for (int shape = 0; shape <= 4; shape++) {
+                // few distinct keys to check stability, then many
+                for (long range : new long[]{3, 1000, 1L << 32}) {
+                    List<Element> list = input(random, n, range > Integer.MAX_VALUE ? Integer.MIN_VALUE : 0, range,
+                            shape);
+                    Element[] array = list.toArray(new Element[0]);
+                    SortEngine.mergeSort(array, BY_KEY);
+                    assertSameOrder(expected(list), Arrays.asList(array),
+                            "mergeSort n=" + n + " shape=" + shape + " range=" + range);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void sortListMatchesListSort() {
+        Random random = new Random(2);
+        for (int round = 0; round < 50; round++) {
+            List<Element> list = input(random, random.nextInt(3000), -100, 200, round % 5);
+            List<Element> sorted = new ArrayList<>(list);
+            SortEngine.sort(sorted, BY_KEY);
+            assertSameOrder(expected(list), sorted, "sort round " + round);
+        }
+    }
+
+    @Test
+    public void parallelSortMatchesListSort() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Random random = new Random(3);
+            int[] sizes = {2 * SortEngine.PARALLEL_GRANULARITY, 2 * SortEngine.PARALLEL_GRANULARITY + 123,
+                    5 * SortEngine.PARALLEL_GRANULARITY + 7};
+            for (int n : sizes) {
+                for (int shape = 0; shape <= 4; shape++) {
+                    for (long range : new long[]{10, 1L << 32}) {
+                        List<Element> list = input(random, n, range > Integer.MAX_VALUE ? Integer.MIN_VALUE : 0,
+                                range, shape);
+                        Element[] array = list.toArray(new Element[0]);
+                        SortEngine.parallelSort(array, BY_KEY, pool);
+                        assertSameOrder(expected(list), Arrays.asList(array),
+                                "parallelSort n=" + n + " shape=" + shape + " range=" + range);
+                    }
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelSortOnOneThreadMatchesListSort() {
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            List<Element> list = input(new Random(4), 2 * SortEngine.PARALLEL_GRANULARITY, 0, 50, 0);
+            Element[] array = list.toArray(new Element[0]);
+            SortEngine.parallelSort(array, BY_KEY, pool);
+            assertSameOrder(expected(list), Arrays.asList(array), "parallelSort one thread");
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void sortByKeyWithNegativeKeys() {
+        Random random = new Random(5);
+        for (int round = 0; round < 100; round++) {
+            int n = random.nextInt(2000);
+            List<Element> list = input(random, n, -500, 1 + random.nextInt(1000), round % 5);
+            List<Element> sorted = new ArrayList<>(list);
+            SortEngine.sortByKey(sorted, e -> e.key);
+            assertSameOrder(expected(list), sorted, "sortByKey negative round " + round);
+        }
+    }
+
+    @Test
+    public void sortByKeyFallsBackForLargeRanges() {
+        Random random = new Random(6);
+        // range above COUNTING_MAX_RANGE, and a range below it that is still much bigger than the list
+        long[] ranges = {SortEngine.COUNTING_MAX_RANGE + 1L, 1L << 32, 20000};
+        for (long range : ranges) {
+            for (int shape = 0; shape <= 4; shape++) {
+                List<Element> list = input(random, 1000, range > Integer.MAX_VALUE ? Integer.MIN_VALUE : -7000,
+                        range, shape);
+                List<Element> sorted = new ArrayList<>(list);
+                SortEngine.sortByKey(sorted, e -> e.key);
+                assertSameOrder(expected(list), sorted, "sortByKey range=" + range + " shape=" + shape);
+            }
+        }
+    }
+
+    @Test
+    public void sortByKeyWithExtremeKeys() {
+        List<Element> list = new ArrayList<>();
+        int[] keys = {Integer.MAX_VALUE, 0, Integer.MIN_VALUE, -1, Integer.MAX_VALUE, Integer.MIN_VALUE, 1};
+        for (int i = 0; i < keys.length; i++) {
+            list.add(new Element(keys[i], i));
+        }
+        List<Element> sorted = new ArrayList<>(list);
+        SortEngine.sortByKey(sorted, e -> e.key);
+        assertSameOrder(expected(list), sorted, "sortByKey extreme keys");
+    }
+}